@@ -0,0 +1,37 @@
+package com.theoryinpractise.halbuilder5.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, recording allocation rates alongside timings,
+ * and writes the results as JSON to {@code results/latest.json}. Any standard JMH command line
+ * options, such as a benchmark include pattern, are passed through.
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    File results = new File("results");
+    if (!results.isDirectory() && !results.mkdirs()) {
+      throw new IllegalStateException("Unable to create " + results);
+    }
+
+    Options options =
+        new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(new File(results, "latest.json").getPath())
+            .build();
+
+    new Runner(options).run();
+  }
+}
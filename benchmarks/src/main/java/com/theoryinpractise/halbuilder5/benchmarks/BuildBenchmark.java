@@ -0,0 +1,80 @@
+package com.theoryinpractise.halbuilder5.benchmarks;
+
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int linkCount;
+
+  @Param({"10", "100", "1000"})
+  public int collectionSize;
+
+  private List<String> hrefs;
+
+  private List<Fixtures.Item> values;
+
+  @Setup
+  public void setUp() {
+    hrefs = new ArrayList<>(collectionSize);
+    values = new ArrayList<>(collectionSize);
+    for (int i = 0; i < collectionSize; i++) {
+      hrefs.add("/items/" + i);
+      values.add(new Fixtures.Item(i, 64));
+    }
+  }
+
+  /**
+   * Wraps the prepared values in fresh representations on every invocation, as a representation
+   * caches its hash code once computed and embedding it again would skip hashing it.
+   */
+  private ResourceRepresentation<Fixtures.Item> item(int index) {
+    return ResourceRepresentation.create(hrefs.get(index), values.get(index));
+  }
+
+  @Benchmark
+  public ResourceRepresentation<Void> persistent() {
+    ResourceRepresentation<Void> representation = ResourceRepresentation.empty("/items");
+    for (int i = 0; i < linkCount; i++) {
+      representation = representation.withLink("rel" + (i % 8), "/items/links/" + i);
+    }
+    for (int i = 0; i < collectionSize; i++) {
+      representation = representation.withRepresentation("item", item(i));
+    }
+    return representation;
+  }
+
+  @Benchmark
+  public ResourceRepresentation<Void> builder() {
+    ResourceRepresentation.Builder<Void> builder =
+        ResourceRepresentation.<Void>builder().withLink("self", "/items");
+    for (int i = 0; i < linkCount; i++) {
+      builder.withLink("rel" + (i % 8), "/items/links/" + i);
+    }
+    for (int i = 0; i < collectionSize; i++) {
+      builder.withRepresentation("item", item(i));
+    }
+    return builder.build();
+  }
+}
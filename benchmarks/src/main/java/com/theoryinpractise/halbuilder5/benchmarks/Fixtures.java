@@ -0,0 +1,102 @@
+package com.theoryinpractise.halbuilder5.benchmarks;
+
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+
+import java.util.Arrays;
+
+/** Builds the representations exercised by the benchmarks. */
+final class Fixtures {
+
+  private Fixtures() {}
+
+  /** A simple bean value, with a description padded to the requested payload size. */
+  public static final class Item {
+
+    private int id;
+
+    private String name;
+
+    private String description;
+
+    private double price;
+
+    public Item() {}
+
+    Item(int id, int payloadSize) {
+      char[] padding = new char[payloadSize];
+      Arrays.fill(padding, 'x');
+      this.id = id;
+      this.name = "Item " + id;
+      this.description = new String(padding);
+      this.price = id * 1.5;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public void setDescription(String description) {
+      this.description = description;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+  }
+
+  /**
+   * A collection resource with {@code linkCount} links, embedding {@code collectionSize} items.
+   * Each item embeds a chain of {@code embedDepth - 1} nested children.
+   */
+  static ResourceRepresentation<Item> collection(
+      int collectionSize, int linkCount, int embedDepth, int payloadSize) {
+    ResourceRepresentation.Builder<Item> collection =
+        ResourceRepresentation.<Item>builder()
+            .withValue(new Item(0, payloadSize))
+            .withLink("self", "/items");
+    for (int i = 0; i < linkCount; i++) {
+      collection.withLink("rel" + (i % 8), "/items/links/" + i);
+    }
+    for (int i = 0; i < collectionSize; i++) {
+      collection.withTrustedRepresentation(
+          "item", item("/items/" + i, i, linkCount, embedDepth, payloadSize));
+    }
+    return collection.build();
+  }
+
+  private static ResourceRepresentation<Item> item(
+      String href, int id, int linkCount, int depth, int payloadSize) {
+    ResourceRepresentation.Builder<Item> item =
+        ResourceRepresentation.<Item>builder()
+            .withValue(new Item(id, payloadSize))
+            .withLink("self", href);
+    for (int i = 0; i < linkCount; i++) {
+      item.withLink("rel" + (i % 8), href + "/links/" + i);
+    }
+    if (depth > 1) {
+      item.withRepresentation(
+          "child", item(href + "/child", id, linkCount, depth - 1, payloadSize));
+    }
+    return item.build();
+  }
+}
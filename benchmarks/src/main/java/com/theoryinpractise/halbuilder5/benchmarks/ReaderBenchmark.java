@@ -0,0 +1,67 @@
+package com.theoryinpractise.halbuilder5.benchmarks;
+
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationReader;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationWriter;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+  @Param({"1", "100", "1000"})
+  public int collectionSize;
+
+  @Param({"4", "32"})
+  public int linkCount;
+
+  @Param({"64", "1024"})
+  public int payloadSize;
+
+  private JsonRepresentationReader reader;
+
+  private ByteString document;
+
+  @Setup
+  public void setUp() {
+    reader = JsonRepresentationReader.create();
+    document =
+        JsonRepresentationWriter.create()
+            .print(Fixtures.collection(collectionSize, linkCount, 1, payloadSize));
+  }
+
+  @Benchmark
+  public ResourceRepresentation<ByteString> read() {
+    return reader.read(document);
+  }
+
+  @Benchmark
+  public Fixtures.Item readAndBind() {
+    return reader.read(document, Fixtures.Item.class).get();
+  }
+
+  @Benchmark
+  public void readAndTouchEmbedded(Blackhole blackhole) {
+    for (ResourceRepresentation<?> item : reader.read(document).getResourcesByRel("item")) {
+      blackhole.consume(item.get());
+    }
+  }
+}
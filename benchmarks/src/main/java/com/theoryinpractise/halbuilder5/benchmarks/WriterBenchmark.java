@@ -0,0 +1,54 @@
+package com.theoryinpractise.halbuilder5.benchmarks;
+
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationWriter;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+  @Param({"1", "100", "1000"})
+  public int collectionSize;
+
+  @Param({"4", "32"})
+  public int linkCount;
+
+  @Param({"1", "3"})
+  public int embedDepth;
+
+  @Param({"64", "1024"})
+  public int payloadSize;
+
+  private JsonRepresentationWriter writer;
+
+  private ResourceRepresentation<?> representation;
+
+  @Setup
+  public void setUp() {
+    writer = JsonRepresentationWriter.create();
+    representation = Fixtures.collection(collectionSize, linkCount, embedDepth, payloadSize);
+  }
+
+  @Benchmark
+  public ByteString print() {
+    return writer.print(representation);
+  }
+}
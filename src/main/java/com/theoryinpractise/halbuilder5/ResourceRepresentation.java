@@ -1,7 +1,11 @@
 package com.theoryinpractise.halbuilder5;
 
+import io.vavr.Lazy;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.Value;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
@@ -9,16 +13,21 @@ import io.vavr.collection.Multimap;
 import io.vavr.collection.Traversable;
 import io.vavr.collection.TreeMap;
 import io.vavr.collection.TreeMultimap;
+import io.vavr.collection.Vector;
 import io.vavr.control.Option;
 import okio.ByteString;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.theoryinpractise.halbuilder5.Rels.getRel;
+import static com.theoryinpractise.halbuilder5.Support.CURIES;
 
 public final class ResourceRepresentation<V> implements Value<V> {
 
@@ -39,12 +48,12 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
   @Override
   public V get() {
-    return value;
+    return deferredValue != null ? deferredValue.get() : value;
   }
 
   @Override
   public boolean isEmpty() {
-    return value == null;
+    return get() == null;
   }
 
   @Override
@@ -54,7 +63,7 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
   @Override
   public boolean isLazy() {
-    return false;
+    return deferredValue != null;
   }
 
   @Override
@@ -62,15 +71,63 @@ public final class ResourceRepresentation<V> implements Value<V> {
     return true;
   }
 
+  /**
+   * Maps the value of this representation. When the representation is lazy, the function is not
+   * applied until the value of the returned representation is first requested.
+   */
   @Override
   public <U> ResourceRepresentation<U> map(Function<? super V, ? extends U> function) {
+    if (isLazy()) {
+      Lazy<? extends V> source = deferredValue;
+      return new ResourceRepresentation<U>(
+          content,
+          links,
+          linksByRel,
+          rels,
+          namespaceManager,
+          null,
+          Lazy.of(() -> function.apply(source.get())),
+          resources,
+          embedded);
+    }
     return new ResourceRepresentation<U>(
-        content, links, rels, namespaceManager, function.apply(value), resources);
+        content,
+        links,
+        linksByRel,
+        rels,
+        namespaceManager,
+        function.apply(get()),
+        null,
+        resources,
+        embedded);
+  }
+
+  /**
+   * Switch this representation to lazy mode, where values supplied by {@link #map(Function)} are
+   * only computed when first requested, and then remembered.
+   *
+   * @return A lazy representation with the same value
+   */
+  public ResourceRepresentation<V> lazy() {
+    if (isLazy()) {
+      return this;
+    }
+    V current = value;
+    return new ResourceRepresentation<>(
+        content,
+        links,
+        linksByRel,
+        rels,
+        namespaceManager,
+        null,
+        Lazy.of(() -> current),
+        resources,
+        embedded);
   }
 
   @Override
   public ResourceRepresentation<V> peek(Consumer<? super V> consumer) {
-    consumer.accept(value);
+    consumer.accept(get());
     return this;
   }
 
@@ -81,11 +138,11 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
   @Override
   public Iterator<V> iterator() {
-    return Option.of(value).iterator();
+    return Option.of(get()).iterator();
   }
 
   public <R> R transform(Function<V, R> transformer) {
-    return transformer.apply(value);
+    return transformer.apply(get());
   }
 
   protected NamespaceManager namespaceManager = NamespaceManager.EMPTY;
@@ -94,27 +151,68 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
   protected TreeMap<String, Rel> rels = TreeMap.empty();
 
-  protected List<Link> links = List.empty();
+  protected Vector<Link> links = Vector.empty();
+
+  /** The links of this resource indexed by rel, each in the order they were added. */
+  protected TreeMap<String, Vector<Link>> linksByRel = TreeMap.empty();
+
+  /** The links of this resource in RELATABLE_ORDERING, computed once when first requested. */
+  private List<Link> sortedLinks;
+
+  /** The links of this resource grouped by rel, computed once when first requested. */
+  private List<Tuple2<String, List<Link>>> linkGroups;
+
+  /** As linkGroups, led by the namespaces as curies links, computed once when first requested. */
+  private List<Tuple2<String, List<Link>>> namespacedLinkGroups;
+
+  /** The embedded resources grouped and ordered by rel, computed once when first requested. */
+  private List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups;
 
   protected V value;
 
+  protected Lazy<? extends V> deferredValue;
+
   protected Multimap<String, ResourceRepresentation<?>> resources = TreeMultimap.withSeq().empty();
 
+  /**
+   * Registry of embedded resources, used to detect duplicate embeds without scanning. Keyed by
+   * {@link EmbedKey}, which hashes resources without materialising their values.
+   */
+  protected HashSet<EmbedKey> embedded = HashSet.empty();
+
   protected boolean hasNullProperties = false;
 
+  /** Cached hash code, computed when first requested. Zero until then. */
+  private int hash;
+
+  /** Cached hash code of everything but the value, computed when first requested. */
+  private int shapeHash;
+
+  /**
+   * Cached structural fingerprint, computed when first requested. Zero until then. Volatile so the
+   * 64-bit value is never observed half written.
+   */
+  private volatile long fingerprint;
+
   private ResourceRepresentation(
       Option<ByteString> content,
-      List<Link> links,
+      Vector<Link> links,
+      TreeMap<String, Vector<Link>> linksByRel,
       TreeMap<String, Rel> rels,
       NamespaceManager namespaceManager,
       V value,
-      Multimap<String, ResourceRepresentation<?>> resources) {
+      Lazy<? extends V> deferredValue,
+      Multimap<String, ResourceRepresentation<?>> resources,
+      HashSet<EmbedKey> embedded) {
     this.content = content;
     this.links = links;
+    this.linksByRel = linksByRel;
     this.rels = rels;
     this.namespaceManager = namespaceManager;
     this.value = value;
+    this.deferredValue = deferredValue;
     this.resources = resources;
+    this.embedded = embedded;
   }
 
   public static ResourceRepresentation<Void> empty(String href) {
@@ -132,16 +230,30 @@ public final class ResourceRepresentation<V> implements Value<V> {
   private static final ResourceRepresentation<Void> EMPTY =
       new ResourceRepresentation<>(
           Option.none(),
-          List.empty(),
+          Vector.empty(),
+          TreeMap.empty(),
           TreeMap.of("self", SELF),
           NamespaceManager.EMPTY,
           null,
-          TreeMultimap.withSeq().empty());
+          null,
+          TreeMultimap.withSeq().empty(),
+          HashSet.empty());
 
   public static ResourceRepresentation<Void> empty() {
     return EMPTY;
   }
 
+  /**
+   * Create a mutable builder, for assembling large representations without allocating a new
+   * representation for every link and embedded resource added.
+   *
+   * @param <V> The type of the representations value
+   * @return A new, empty builder
+   */
+  public static <V> Builder<V> builder() {
+    return new Builder<>();
+  }
+
   /**
    * Retrieve the defined rel semantics for this representation.
    *
@@ -159,7 +271,15 @@ public final class ResourceRepresentation<V> implements Value<V> {
    */
   public ResourceRepresentation<V> withContent(ByteString content) {
     return new ResourceRepresentation<>(
-        Option.of(content), links, rels, namespaceManager, value, resources);
+        Option.of(content),
+        links,
+        linksByRel,
+        rels,
+        namespaceManager,
+        value,
+        deferredValue,
+        resources,
+        embedded);
   }
 
   /**
@@ -173,7 +293,15 @@ public final class ResourceRepresentation<V> implements Value<V> {
     }
     final TreeMap<String, Rel> updatedRels = rels.put(rel.rel(), rel);
     return new ResourceRepresentation<>(
-        content, links, updatedRels, namespaceManager, value, resources);
+        content,
+        links,
+        linksByRel,
+        updatedRels,
+        namespaceManager,
+        value,
+        deferredValue,
+        resources,
+        embedded);
   }
 
   /**
@@ -244,9 +372,18 @@ public final class ResourceRepresentation<V> implements Value<V> {
     validateSingletonRel(rel);
     final TreeMap<String, Rel> updatedRels =
         !rels.containsKey(rel) ? rels.put(rel, Rels.natural(rel)) : rels;
-    final List<Link> updatedLinks = links.append(link);
+    final Vector<Link> updatedLinks = links.append(link);
+    final TreeMap<String, Vector<Link>> updatedLinksByRel = indexLink(linksByRel, link);
     return new ResourceRepresentation<>(
-        content, updatedLinks, updatedRels, namespaceManager, value, resources);
+        content,
+        updatedLinks,
+        updatedLinksByRel,
+        updatedRels,
+        namespaceManager,
+        value,
+        deferredValue,
+        resources,
+        embedded);
   }
 
   /**
@@ -270,9 +407,19 @@ public final class ResourceRepresentation<V> implements Value<V> {
                 (accum, rel) ->
                     !accum.containsKey(rel) ? accum.put(rel, Rels.natural(rel)) : accum);
 
-    final List<Link> updatedLinks = this.links.appendAll(links);
+    final Vector<Link> updatedLinks = this.links.appendAll(links);
+    final TreeMap<String, Vector<Link>> updatedLinksByRel =
+        links.foldLeft(linksByRel, ResourceRepresentation::indexLink);
     return new ResourceRepresentation<>(
-        content, updatedLinks, updatedRels, namespaceManager, value, resources);
+        content,
+        updatedLinks,
+        updatedLinksByRel,
+        updatedRels,
+        namespaceManager,
+        value,
+        deferredValue,
+        resources,
+        embedded);
   }
 
   /**
@@ -284,7 +431,36 @@ public final class ResourceRepresentation<V> implements Value<V> {
    */
   public <R> ResourceRepresentation<R> withValue(R newValue) {
     return new ResourceRepresentation<>(
-        Option.none(), links, rels, namespaceManager, newValue, resources);
+        Option.none(),
+        links,
+        linksByRel,
+        rels,
+        namespaceManager,
+        newValue,
+        null,
+        resources,
+        embedded);
+  }
+
+  /**
+   * Replace the value of this resource with a value that is only computed when first accessed, and
+   * then remembered for all further accesses.
+   *
+   * @param newValue The supplier of the new value for this resource
+   * @param <R> The type of the new value
+   * @return The new resource
+   */
+  public <R> ResourceRepresentation<R> withLazyValue(Supplier<? extends R> newValue) {
+    return new ResourceRepresentation<>(
+        Option.none(),
+        links,
+        linksByRel,
+        rels,
+        namespaceManager,
+        null,
+        Lazy.of(newValue),
+        resources,
+        embedded);
   }
 
   /**
@@ -303,16 +479,56 @@ public final class ResourceRepresentation<V> implements Value<V> {
     final NamespaceManager updatedNamespaceManager =
         namespaceManager.withNamespace(namespace, href);
     return new ResourceRepresentation<>(
-        content, links, rels, updatedNamespaceManager, value, resources);
+        content,
+        links,
+        linksByRel,
+        rels,
+        updatedNamespaceManager,
+        value,
+        deferredValue,
+        resources,
+        embedded);
   }
 
+  /**
+   * Embed a resource in this resource.
+   *
+   * <p>Duplicates are found by their links, namespaces and embedded resources, without
+   * materialising the value of a lazy resource. A lazy value is only materialised when another
+   * embedded resource matches all of those, to decide whether the two are equal.
+   *
+   * @param rel The rel to embed the resource under
+   * @param resource The resource to embed
+   * @throws IllegalStateException if the resource is already embedded
+   */
   public ResourceRepresentation<V> withRepresentation(
       String rel, ResourceRepresentation<?> resource) {
 
-    if (resources.containsValue(resource)) {
+    EmbedKey key = new EmbedKey(resource);
+    if (embedded.contains(key)) {
       throw new IllegalStateException("Resource is already embedded.");
     }
 
+    return embed(rel, resource, embedded.add(key));
+  }
+
+  /**
+   * Embed a resource in this resource without checking whether it is already embedded, for bulk
+   * paths where the resources are known to be distinct. Trusted resources are not hashed, and so
+   * are not considered when checking later calls to {@link #withRepresentation(String,
+   * ResourceRepresentation)} for duplicates.
+   *
+   * @param rel The rel to embed the resource under
+   * @param resource The resource to embed
+   */
+  public ResourceRepresentation<V> withTrustedRepresentation(
+      String rel, ResourceRepresentation<?> resource) {
+    return embed(rel, resource, embedded);
+  }
+
+  private ResourceRepresentation<V> embed(
+      String rel, ResourceRepresentation<?> resource, HashSet<EmbedKey> updatedEmbedded) {
+
     Support.checkRelType(rel);
     validateSingletonRel(rel);
 
@@ -320,7 +536,15 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
     ResourceRepresentation<V> updatedRepresentation =
         new ResourceRepresentation<>(
-            content, links, rels, namespaceManager, value, updatedResources);
+            content,
+            links,
+            linksByRel,
+            rels,
+            namespaceManager,
+            value,
+            deferredValue,
+            updatedResources,
+            updatedEmbedded);
     // Propagate null property flag to parent.
     if (resource.hasNullProperties()) {
       updatedRepresentation.hasNullProperties = true;
@@ -333,13 +557,20 @@ public final class ResourceRepresentation<V> implements Value<V> {
     return updatedRepresentation;
   }
 
+  private static TreeMap<String, Vector<Link>> indexLink(
+      TreeMap<String, Vector<Link>> index, Link link) {
+    String rel = Links.getRel(link);
+    return index.put(rel, index.get(rel).getOrElse(Vector.empty()).append(link));
+  }
+
   private void validateSingletonRel(String unvalidatedRel) {
     rels.get(unvalidatedRel)
         .forEach(
             rel -> {
               // Rel is register, check for duplicate singleton
               if (isSingleton(rel)
-                  && (!getLinksByRel(rel).isEmpty() || !getResourcesByRel(rel).isEmpty())) {
+                  && (linksByRel.containsKey(unvalidatedRel)
+                      || resources.containsKey(unvalidatedRel))) {
                 throw new IllegalStateException(
                     String.format("%s is registered as a single rel and already exists.", rel));
               }
@@ -385,7 +616,7 @@ public final class ResourceRepresentation<V> implements Value<V> {
 
   public List<Link> getLinksByRel(String rel) {
     Support.checkRelType(rel);
-    return getLinksByRel(this, rel);
+    return List.ofAll(linksByRel.get(rel).getOrElse(Vector.empty()));
   }
 
   public List<Link> getLinksByRel(Rel rel) {
@@ -410,30 +641,186 @@ public final class ResourceRepresentation<V> implements Value<V> {
   }
 
   public List<Link> getLinks() {
-    return links.sorted(RELATABLE_ORDERING);
+    // Benign race, the sorted list is immutable and recomputing it yields an equal list.
+    List<Link> sorted = sortedLinks;
+    if (sorted == null) {
+      sorted = List.ofAll(links).sorted(RELATABLE_ORDERING);
+      sortedLinks = sorted;
+    }
+    return sorted;
   }
 
-  private List<Link> getLinksByRel(ResourceRepresentation<V> representation, String rel) {
-    Support.checkRelType(rel);
-    return representation
-        .getLinks()
-        .filter(
-            link -> {
-              return rel.equals(Links.getRel(link));
-            });
+  /**
+   * The links of this resource grouped by rel, with the groups in the order their rels first appear
+   * in {@link #getLinks()}. When {@code includeNamespaces} is set, the namespaces lead as a group
+   * of {@code curies} links. The groups are computed once and reused, so that writers can iterate
+   * them without allocating.
+   *
+   * @param includeNamespaces Whether to include the namespaces as {@code curies} links
+   * @return The grouped links
+   */
+  public List<Tuple2<String, List<Link>>> getLinkGroups(boolean includeNamespaces) {
+    // Benign races, as with getLinks() recomputing the groups yields an equal list.
+    if (includeNamespaces && !namespaceManager.getNamespaces().isEmpty()) {
+      List<Tuple2<String, List<Link>>> groups = namespacedLinkGroups;
+      if (groups == null) {
+        groups =
+            groupLinks(
+                namespaceManager
+                    .getNamespaces()
+                    .toList()
+                    .map(ns -> Links.create(CURIES, ns._2, "name", ns._1))
+                    .appendAll(getLinks()));
+        namespacedLinkGroups = groups;
+      }
+      return groups;
+    }
+    List<Tuple2<String, List<Link>>> groups = linkGroups;
+    if (groups == null) {
+      groups = groupLinks(getLinks());
+      linkGroups = groups;
+    }
+    return groups;
+  }
+
+  private static List<Tuple2<String, List<Link>>> groupLinks(List<Link> links) {
+    LinkedHashMap<String, ArrayList<Link>> groups = new LinkedHashMap<>();
+    for (Link link : links) {
+      groups.computeIfAbsent(Links.getRel(link), rel -> new ArrayList<>()).add(link);
+    }
+    return List.ofAll(groups.entrySet()).map(e -> Tuple.of(e.getKey(), List.ofAll(e.getValue())));
+  }
+
+  /**
+   * The embedded resources grouped by rel, in rel order. The resources of sorted rels are ordered
+   * by the rels comparator, all others are in the order they were embedded. The groups are computed
+   * once and reused, so that writers can iterate them without allocating.
+   *
+   * @return The grouped embedded resources
+   */
+  public List<Tuple2<String, List<ResourceRepresentation<?>>>> getResourceGroups() {
+    // Benign race, as with getLinks() recomputing the groups yields an equal list.
+    List<Tuple2<String, List<ResourceRepresentation<?>>>> groups = resourceGroups;
+    if (groups == null) {
+      groups =
+          resources
+              .keySet()
+              .toList()
+              .map(
+                  rel -> {
+                    List<ResourceRepresentation<?>> values = List.ofAll(resources.get(rel).get());
+                    Option<Comparator<ResourceRepresentation<?>>> comparator =
+                        Rels.getComparator(rels.get(rel).get());
+                    return Tuple.of(
+                        rel, comparator.isDefined() ? values.sorted(comparator.get()) : values);
+                  });
+      resourceGroups = groups;
+    }
+    return groups;
   }
 
   @Override
   public int hashCode() {
-    int h = namespaceManager.hashCode();
-    h += links.hashCode();
-    if (value != null) {
-      h += value.hashCode();
+    // Benign race, as with String.hashCode any thread computing the hash arrives at the same value.
+    int h = hash;
+    if (h == 0) {
+      h = namespaceManager.hashCode();
+      h += links.hashCode();
+      V v = get();
+      if (v != null) {
+        h += v.hashCode();
+      }
+      h += resources.hashCode();
+      hash = h;
     }
-    h += resources.hashCode();
     return h;
   }
 
+  /** A hash of the namespaces, links and embedded resources, which never materialises values. */
+  private int shapeHash() {
+    // Benign race, as with hashCode().
+    int h = shapeHash;
+    if (h == 0) {
+      h = namespaceManager.hashCode();
+      h = 31 * h + links.hashCode();
+      for (Tuple2<String, ResourceRepresentation<?>> resource : resources) {
+        h = 31 * h + resource._1.hashCode();
+        h = 31 * h + resource._2.shapeHash();
+      }
+      shapeHash = h;
+    }
+    return h;
+  }
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * A 64-bit FNV-1a hash over the structure of this representation: its namespaces, links, value
+   * and embedded resources. Equal representations have equal fingerprints.
+   *
+   * <p>Namespaces and links are always hashed by content. So are {@code ByteString} values, such as
+   * the properties read by {@code JsonRepresentationReader}, and {@code CharSequence}, {@code
+   * Number}, {@code Boolean} and enum values. Any other value contributes only its 32-bit {@code
+   * hashCode()}, so the fingerprint is then only stable across JVMs when that hash code is computed
+   * from the values content, and values whose hash codes collide are not distinguished. Only use
+   * the fingerprint as an ETag for representations whose values are hashed by content, or as a weak
+   * validator where an occasional collision is acceptable.
+   *
+   * @return The structural fingerprint of this representation
+   */
+  public long fingerprint() {
+    long f = fingerprint;
+    if (f == 0) {
+      f = FNV_OFFSET_BASIS;
+      for (Tuple2<String, String> namespace : namespaceManager.getNamespaces()) {
+        f = fnv(fnv(f, namespace._1), namespace._2);
+      }
+      for (Link link : links) {
+        f = fnv(fnv(f, Links.getRel(link)), Links.getHref(link));
+        f = fnv(f, Links.getTemplated(link) ? 1 : 0);
+        for (Tuple2<String, String> property :
+            Links.getProperties(link).getOrElse(HashMap.empty()).toList().sortBy(p -> p._1)) {
+          f = fnv(fnv(f, property._1), property._2);
+        }
+      }
+      V v = get();
+      if (v instanceof ByteString) {
+        ByteString bytes = (ByteString) v;
+        for (int i = 0; i < bytes.size(); i++) {
+          f = (f ^ (bytes.getByte(i) & 0xff)) * FNV_PRIME;
+        }
+      } else if (v instanceof CharSequence || v instanceof Number || v instanceof Boolean) {
+        f = fnv(f, v.toString());
+      } else if (v instanceof Enum) {
+        f = fnv(f, ((Enum<?>) v).name());
+      } else if (v != null) {
+        f = fnv(f, v.hashCode());
+      }
+      for (Tuple2<String, ResourceRepresentation<?>> resource : resources) {
+        f = fnv(fnv(f, resource._1), resource._2.fingerprint());
+      }
+      fingerprint = f;
+    }
+    return f;
+  }
+
+  private static long fnv(long f, String s) {
+    f = fnv(f, s.length());
+    for (int i = 0; i < s.length(); i++) {
+      f = (f ^ s.charAt(i)) * FNV_PRIME;
+    }
+    return f;
+  }
+
+  private static long fnv(long f, long value) {
+    for (int i = 0; i < 64; i += 8) {
+      f = (f ^ ((value >>> i) & 0xff)) * FNV_PRIME;
+    }
+    return f;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == null) {
@@ -446,12 +833,15 @@ public final class ResourceRepresentation<V> implements Value<V> {
       return false;
     }
     ResourceRepresentation that = (ResourceRepresentation) obj;
-    boolean e = Objects.equals(this.namespaceManager, that.namespaceManager);
-    e &= Objects.equals(this.links, that.links);
-
-    e &= Objects.equals(this.value, that.value);
-    e &= Objects.equals(this.resources, that.resources);
-    return e;
+    // Only compare hashes that are already cached, computing them would force lazy values.
+    if (this.hash != 0 && that.hash != 0 && this.hash != that.hash) {
+      return false;
+    }
+    // Compare the value last, as a lazy value is only materialised when everything else matches.
+    return Objects.equals(this.namespaceManager, that.namespaceManager)
+        && Objects.equals(this.links, that.links)
+        && Objects.equals(this.resources, that.resources)
+        && Objects.equals(this.get(), that.get());
   }
 
   @Override
@@ -460,4 +850,209 @@ public final class ResourceRepresentation<V> implements Value<V> {
         .map(link -> String.format("<Representation: %s>", Links.getHref(link)))
         .getOrElse(String.format("<Representation: @%s>", Integer.toHexString(hashCode())));
   }
+
+  /**
+   * Registers an embedded resource by its shape hash, so that unequal resources rarely need
+   * comparing and the values of lazy resources are only materialised to compare resources that
+   * otherwise match.
+   */
+  private static final class EmbedKey {
+
+    private final ResourceRepresentation<?> representation;
+
+    private EmbedKey(ResourceRepresentation<?> representation) {
+      this.representation = representation;
+    }
+
+    @Override
+    public int hashCode() {
+      return representation.shapeHash();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof EmbedKey && representation.equals(((EmbedKey) obj).representation);
+    }
+  }
+
+  /**
+   * A mutable builder for {@link ResourceRepresentation}. Links, rels, namespaces and embedded
+   * resources are accumulated in plain mutable collections, and the singleton rel and namespace
+   * rules are validated once when {@link #build()} is called. A builder should not be shared
+   * between threads.
+   *
+   * @param <V> The type of the representations value
+   */
+  public static final class Builder<V> {
+
+    private final java.util.List<Link> links = new ArrayList<>();
+
+    private final java.util.Map<String, Rel> rels = new LinkedHashMap<>();
+
+    private final java.util.Map<String, String> namespaces = new LinkedHashMap<>();
+
+    private final java.util.List<Tuple2<String, ResourceRepresentation<?>>> resources =
+        new ArrayList<>();
+
+    private final java.util.Set<EmbedKey> embedded = new java.util.HashSet<>();
+
+    private Option<ByteString> content = Option.none();
+
+    private V value;
+
+    private Lazy<? extends V> deferredValue;
+
+    private Builder() {
+      rels.put(SELF.rel(), SELF);
+    }
+
+    public Builder<V> withContent(ByteString content) {
+      this.content = Option.of(content);
+      return this;
+    }
+
+    public Builder<V> withValue(V value) {
+      this.value = value;
+      this.deferredValue = null;
+      return this;
+    }
+
+    public Builder<V> withLazyValue(Supplier<? extends V> value) {
+      this.value = null;
+      this.deferredValue = Lazy.of(value);
+      return this;
+    }
+
+    /**
+     * Define rel semantics for the representation.
+     *
+     * @param rel A defined relationship type
+     * @throws IllegalStateException if the rel has already been declared
+     */
+    public Builder<V> withRel(Rel rel) {
+      if (rels.containsKey(rel.rel())) {
+        throw new IllegalStateException(String.format("Rel %s is already declared.", rel.rel()));
+      }
+      rels.put(rel.rel(), rel);
+      return this;
+    }
+
+    public Builder<V> withLink(String rel, String href) {
+      return withLink(Links.create(rel, href));
+    }
+
+    public Builder<V> withLink(String rel, String href, Map<String, String> properties) {
+      return withLink(Links.create(rel, href, properties));
+    }
+
+    public Builder<V> withLink(Link link) {
+      Support.checkRelType(Links.getRel(link));
+      links.add(link);
+      return this;
+    }
+
+    public Builder<V> withLinks(Iterable<Link> links) {
+      for (Link link : links) {
+        withLink(link);
+      }
+      return this;
+    }
+
+    public Builder<V> withNamespace(String namespace, String href) {
+      if (namespaces.containsKey(namespace)) {
+        throw new RepresentationException(
+            String.format("Duplicate namespace '%s' found for representation factory", namespace));
+      }
+      namespaces.put(namespace, href);
+      return this;
+    }
+
+    /**
+     * Embed a resource in the representation.
+     *
+     * @throws IllegalStateException if the resource is already embedded
+     */
+    public Builder<V> withRepresentation(String rel, ResourceRepresentation<?> resource) {
+      Support.checkRelType(rel);
+      if (!embedded.add(new EmbedKey(resource))) {
+        throw new IllegalStateException("Resource is already embedded.");
+      }
+      resources.add(Tuple.of(rel, resource));
+      return this;
+    }
+
+    /**
+     * Embed a resource in the representation without checking whether it is already embedded.
+     *
+     * @see ResourceRepresentation#withTrustedRepresentation(String, ResourceRepresentation)
+     */
+    public Builder<V> withTrustedRepresentation(String rel, ResourceRepresentation<?> resource) {
+      Support.checkRelType(rel);
+      resources.add(Tuple.of(rel, resource));
+      return this;
+    }
+
+    /**
+     * Validate the accumulated state and create the representation.
+     *
+     * @return A new immutable representation
+     * @throws IllegalStateException if a singleton rel is used more than once
+     * @throws RepresentationException if a namespace is not a valid CURIE template
+     */
+    public ResourceRepresentation<V> build() {
+      NamespaceManager namespaceManager = NamespaceManager.EMPTY;
+      for (java.util.Map.Entry<String, String> namespace : namespaces.entrySet()) {
+        namespaceManager = namespaceManager.withNamespace(namespace.getKey(), namespace.getValue());
+      }
+
+      java.util.Map<String, Integer> relCounts = new java.util.HashMap<>();
+      for (Link link : links) {
+        relCounts.merge(Links.getRel(link), 1, Integer::sum);
+      }
+      for (Tuple2<String, ResourceRepresentation<?>> resource : resources) {
+        relCounts.merge(resource._1, 1, Integer::sum);
+      }
+
+      TreeMap<String, Rel> builtRels = TreeMap.empty();
+      for (Rel rel : rels.values()) {
+        builtRels = builtRels.put(rel.rel(), rel);
+      }
+      for (java.util.Map.Entry<String, Integer> relCount : relCounts.entrySet()) {
+        Rel rel = rels.get(relCount.getKey());
+        if (rel == null) {
+          builtRels = builtRels.put(relCount.getKey(), Rels.natural(relCount.getKey()));
+        } else if (isSingleton(rel) && relCount.getValue() > 1) {
+          throw new IllegalStateException(
+              String.format("%s is registered as a single rel and already exists.", rel));
+        }
+      }
+      if (!namespaces.isEmpty() && !builtRels.containsKey(CURIES)) {
+        builtRels = builtRels.put(CURIES, Rels.collection(CURIES));
+      }
+
+      Vector<Link> builtLinks = Vector.ofAll(links);
+
+      Multimap<String, ResourceRepresentation<?>> builtResources = TreeMultimap.withSeq().empty();
+      boolean hasNullProperties = false;
+      for (Tuple2<String, ResourceRepresentation<?>> resource : resources) {
+        builtResources = builtResources.put(resource._1, resource._2);
+        hasNullProperties |= resource._2.hasNullProperties();
+      }
+
+      ResourceRepresentation<V> representation =
+          new ResourceRepresentation<>(
+              content,
+              builtLinks,
+              builtLinks.foldLeft(
+                  TreeMap.<String, Vector<Link>>empty(), ResourceRepresentation::indexLink),
+              builtRels,
+              namespaceManager,
+              value,
+              deferredValue,
+              builtResources,
+              HashSet.ofAll(embedded));
+      representation.hasNullProperties = hasNullProperties;
+      return representation;
+    }
+  }
 }
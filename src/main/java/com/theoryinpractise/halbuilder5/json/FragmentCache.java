@@ -0,0 +1,166 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import io.vavr.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FragmentCache holds the serialised JSON of embedded representations so that a {@link
+ * JsonRepresentationWriter} configured with {@link JsonRepresentationWriter#withFragmentCache} can
+ * splice them into documents rather than rendering them again.
+ *
+ * <p>Fragments are keyed by the {@link ResourceRepresentation#fingerprint() fingerprint} of a
+ * representation together with a signature of the rels of the representation and of each resource
+ * it embeds, as rels decide how links and embedded resources are rendered. Keys are never compared
+ * structurally, so the cache inherits the limits of the fingerprint: only cache representations
+ * whose values are hashed by content, as values whose hash codes collide share a fragment.
+ *
+ * <p>Lookups take no lock. The least recently used fragments, as near as concurrent lookups allow,
+ * are evicted once the total size of the cached fragments exceeds the configured number of bytes. A
+ * cache may be shared by several writers, and between threads, as long as the writers share an
+ * {@code ObjectMapper} configuration.
+ *
+ * <p>Only the fragments themselves count towards the size bound. Cached fragments do not keep their
+ * representations reachable.
+ */
+public final class FragmentCache {
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final long maximumBytes;
+
+  private final ConcurrentHashMap<Key, Entry> fragments = new ConcurrentHashMap<>();
+
+  private final AtomicLong bytes = new AtomicLong();
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private FragmentCache(long maximumBytes) {
+    this.maximumBytes = maximumBytes;
+  }
+
+  /** Creates a cache holding at most {@code maximumBytes} of UTF-8 encoded fragments. */
+  public static FragmentCache create(long maximumBytes) {
+    if (maximumBytes <= 0) {
+      throw new IllegalArgumentException("maximumBytes must be positive.");
+    }
+    return new FragmentCache(maximumBytes);
+  }
+
+  SerializedString get(ResourceRepresentation<?> representation) {
+    Entry entry = fragments.get(new Key(representation));
+    if (entry == null) {
+      return null;
+    }
+    entry.lastAccess = clock.incrementAndGet();
+    return entry.fragment;
+  }
+
+  void put(ResourceRepresentation<?> representation, SerializedString fragment) {
+    Entry entry = new Entry(fragment, clock.incrementAndGet());
+    if (entry.weight > maximumBytes) {
+      return;
+    }
+    Entry previous = fragments.put(new Key(representation), entry);
+    long total = bytes.addAndGet(previous == null ? entry.weight : entry.weight - previous.weight);
+    if (total > maximumBytes) {
+      evict();
+    }
+  }
+
+  /** Removes the least recently used fragments until the cache is back within its bound. */
+  private synchronized void evict() {
+    if (bytes.get() <= maximumBytes) {
+      return;
+    }
+    List<Map.Entry<Key, Entry>> entries = new ArrayList<>(fragments.entrySet());
+    entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+    for (Map.Entry<Key, Entry> eldest : entries) {
+      if (bytes.get() <= maximumBytes) {
+        return;
+      }
+      if (fragments.remove(eldest.getKey(), eldest.getValue())) {
+        bytes.addAndGet(-eldest.getValue().weight);
+      }
+    }
+  }
+
+  /** The number of fragments currently cached. */
+  public int size() {
+    return fragments.size();
+  }
+
+  /** The total size in bytes of the fragments currently cached. */
+  public long weight() {
+    return bytes.get();
+  }
+
+  public synchronized void invalidateAll() {
+    for (Key key : fragments.keySet()) {
+      Entry entry = fragments.remove(key);
+      if (entry != null) {
+        bytes.addAndGet(-entry.weight);
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final SerializedString fragment;
+
+    private final int weight;
+
+    private volatile long lastAccess;
+
+    private Entry(SerializedString fragment, long lastAccess) {
+      this.fragment = fragment;
+      this.weight = fragment.asUnquotedUTF8().length;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  /**
+   * A cache key combining the fingerprint of a representation with a signature of its rels, and the
+   * rels of its embedded resources. The fingerprint alone ignores rels.
+   */
+  private static final class Key {
+
+    private final long fingerprint;
+
+    private final long rels;
+
+    private Key(ResourceRepresentation<?> representation) {
+      this.fingerprint = representation.fingerprint();
+      this.rels = relsSignature(FNV_PRIME, representation);
+    }
+
+    private static long relsSignature(long signature, ResourceRepresentation<?> representation) {
+      signature = (signature ^ representation.getRels().hashCode()) * FNV_PRIME;
+      for (Tuple2<String, ResourceRepresentation<?>> resource : representation.getResources()) {
+        signature = relsSignature(signature, resource._2);
+      }
+      return signature;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(fingerprint ^ rels);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return fingerprint == other.fingerprint && rels == other.rels;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
+import okio.ByteString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * IndexedResource gives random access to the embedded resources of a document read with {@link
+ * JsonRepresentationReader#index(ByteString)}. The document is scanned once up front, recording the
+ * byte range of every embedded resource; each embedded resource is then read from the shared source
+ * document the first time it is accessed, and kept for later accesses.
+ *
+ * <p>Accessing a single item of a large embedded collection therefore only reads that item, rather
+ * than building the whole document.
+ */
+public final class IndexedResource {
+
+  private final JsonRepresentationReader reader;
+
+  private final ByteString source;
+
+  private final ResourceRepresentation<ByteString> resource;
+
+  private final LinkedHashMap<String, int[]> ranges;
+
+  private final Map<String, AtomicReferenceArray<ResourceRepresentation<ByteString>>> resources;
+
+  IndexedResource(
+      JsonRepresentationReader reader,
+      ByteString source,
+      ResourceRepresentation<ByteString> resource,
+      LinkedHashMap<String, int[]> ranges) {
+    this.reader = reader;
+    this.source = source;
+    this.resource = resource;
+    this.ranges = ranges;
+    this.resources = new LinkedHashMap<>();
+    ranges.forEach(
+        (rel, offsets) -> resources.put(rel, new AtomicReferenceArray<>(offsets.length / 2)));
+  }
+
+  /** The root resource, with its links and properties but without any embedded resources. */
+  public ResourceRepresentation<ByteString> getResource() {
+    return resource;
+  }
+
+  /** The rels of the embedded resources, in document order. */
+  public List<String> getRels() {
+    return List.ofAll(ranges.keySet());
+  }
+
+  /** The number of resources embedded under the rel. */
+  public int size(String rel) {
+    int[] offsets = ranges.get(rel);
+    return offsets == null ? 0 : offsets.length / 2;
+  }
+
+  /**
+   * The embedded resource at the given position under the rel, read on first access.
+   *
+   * @throws IndexOutOfBoundsException if there is no resource at that position
+   */
+  public ResourceRepresentation<ByteString> getResource(String rel, int index) {
+    if (index < 0 || index >= size(rel)) {
+      throw new IndexOutOfBoundsException(
+          String.format("No embedded resource %d for rel %s, size %d.", index, rel, size(rel)));
+    }
+    AtomicReferenceArray<ResourceRepresentation<ByteString>> items = resources.get(rel);
+    ResourceRepresentation<ByteString> item = items.get(index);
+    if (item == null) {
+      int[] offsets = ranges.get(rel);
+      item =
+          reader.readIndexedResource(source.substring(offsets[index * 2], offsets[index * 2 + 1]));
+      if (!items.compareAndSet(index, null, item)) {
+        item = items.get(index);
+      }
+    }
+    return item;
+  }
+
+  /**
+   * The resources embedded under the rel, each read only when the iterator reaches it. Nothing is
+   * read until the first resource is requested.
+   */
+  public Iterator<ResourceRepresentation<ByteString>> getResourcesByRel(String rel) {
+    return Iterator.range(0, size(rel)).map(index -> getResource(rel, index));
+  }
+
+  /** Reads every embedded resource, building the complete representation of the document. */
+  public ResourceRepresentation<ByteString> toRepresentation() {
+    ResourceRepresentation<ByteString> representation = resource;
+    for (String rel : ranges.keySet()) {
+      for (int i = 0; i < size(rel); i++) {
+        representation = representation.withTrustedRepresentation(rel, getResource(rel, i));
+      }
+    }
+    return representation;
+  }
+}
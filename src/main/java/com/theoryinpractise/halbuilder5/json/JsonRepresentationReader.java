@@ -1,26 +1,39 @@
 package com.theoryinpractise.halbuilder5.json;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.theoryinpractise.halbuilder5.Link;
 import com.theoryinpractise.halbuilder5.Links;
 import com.theoryinpractise.halbuilder5.RepresentationException;
 import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import okio.BufferedSource;
 import okio.ByteString;
+import okio.Okio;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
-import java.io.StringReader;
 import java.io.UncheckedIOException;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Scanner;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -30,12 +43,29 @@ import static com.theoryinpractise.halbuilder5.Support.CURIES;
 import static com.theoryinpractise.halbuilder5.Support.EMBEDDED;
 import static com.theoryinpractise.halbuilder5.Support.LINKS;
 import static com.theoryinpractise.halbuilder5.Support.defaultObjectMapper;
+import static java.util.Objects.requireNonNull;
 import static okio.ByteString.encodeUtf8;
 
 public class JsonRepresentationReader {
 
+  private static final ByteString EMPTY_OBJECT = encodeUtf8("{}");
+
+  private static final byte[] OPEN = {'{'};
+
+  private static final byte[] SEPARATOR = {','};
+
+  private static final byte[] CLOSE = {'}'};
+
   private final ObjectMapper mapper;
 
+  private final Executor embedExecutor;
+
+  private final int parallelThreshold;
+
+  private final int parallelism;
+
+  private final ConcurrentMap<Class<?>, ObjectReader> objectReaders = new ConcurrentHashMap<>();
+
   public static final <T> Function<ByteString, T> readByteStringAs(
       ObjectMapper mapper, Class<T> classType, Supplier<T> defaultValue) {
     return bs -> {
@@ -58,8 +88,13 @@ public class JsonRepresentationReader {
     };
   }
 
-  private JsonRepresentationReader(ObjectMapper objectMapper) {
+  private JsonRepresentationReader(
+      ObjectMapper objectMapper, Executor embedExecutor, int parallelThreshold) {
     this.mapper = objectMapper;
+    this.embedExecutor = embedExecutor;
+    this.parallelThreshold = parallelThreshold;
+    this.parallelism =
+        embedExecutor instanceof ForkJoinPool ? ((ForkJoinPool) embedExecutor).getParallelism() : 0;
   }
 
   public static JsonRepresentationReader create() {
@@ -71,7 +106,25 @@ public class JsonRepresentationReader {
   }
 
   public static JsonRepresentationReader create(ObjectMapper objectMapper) {
-    return new JsonRepresentationReader(objectMapper);
+    return new JsonRepresentationReader(objectMapper, null, 0);
+  }
+
+  /**
+   * Returns a reader which reads embedded arrays of at least {@code threshold} resources
+   * concurrently on the given executor. The first {@code threshold - 1} items of each array are
+   * read in place, so smaller arrays are read sequentially with no extra work. The remaining items
+   * are located in the document and split into contiguous sub-ranges, each read as standalone
+   * documents on the executor, with the results assembled in document order. A {@link ForkJoinPool}
+   * receives one sub-range per unit of its parallelism; other executors receive sub-ranges of
+   * {@code threshold} items. Resources nested within those items are read sequentially, so that
+   * tasks never wait on other tasks.
+   */
+  public JsonRepresentationReader withParallelEmbeds(Executor executor, int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be at least 1.");
+    }
+    return new JsonRepresentationReader(
+        mapper, requireNonNull(executor, "executor must not be null"), threshold);
   }
 
   private static String readContent(Reader reader) {
@@ -91,130 +144,700 @@ public class JsonRepresentationReader {
     return read(encodeUtf8(readContent(reader)));
   }
 
+  /**
+   * Read a representation from the remaining content of the stream, which is consumed but not
+   * closed.
+   */
+  public ResourceRepresentation<ByteString> read(InputStream inputStream) {
+    return read(Okio.buffer(Okio.source(inputStream)));
+  }
+
+  public <T> ResourceRepresentation<T> read(InputStream inputStream, Class<T> classType) {
+    return read(Okio.buffer(Okio.source(inputStream)), classType);
+  }
+
+  /** Read a representation from the remaining content of the source, which is left open. */
+  public ResourceRepresentation<ByteString> read(BufferedSource source) {
+    return read(readSource(source));
+  }
+
+  public <T> ResourceRepresentation<T> read(BufferedSource source, Class<T> classType) {
+    return read(readSource(source), classType);
+  }
+
+  /**
+   * Read a representation from the remaining bytes of the buffer, such as a memory mapped file. The
+   * bytes are copied once, and the buffer's position is advanced to its limit.
+   */
+  public ResourceRepresentation<ByteString> read(ByteBuffer byteBuffer) {
+    return read(ByteString.of(byteBuffer));
+  }
+
+  public <T> ResourceRepresentation<T> read(ByteBuffer byteBuffer, Class<T> classType) {
+    return read(ByteString.of(byteBuffer), classType);
+  }
+
+  /**
+   * Incrementally read a representation from the stream, pulling its embedded resources from the
+   * input only as they are iterated. Closing the returned {@link ResourceStream} closes the input.
+   */
+  public ResourceStream stream(InputStream inputStream) {
+    try {
+      return new ResourceStream(this, mapper.getFactory(), inputStream);
+    } catch (IOException e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  public ResourceStream stream(BufferedSource source) {
+    return stream(source.inputStream());
+  }
+
+  /**
+   * Create a feeder for reading a representation pushed in chunks, without blocking for input. See
+   * {@link ResourceFeeder}.
+   */
+  public ResourceFeeder feeder() {
+    try {
+      return new ResourceFeeder(this, mapper.getFactory());
+    } catch (IOException e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  private static ByteString readSource(BufferedSource source) {
+    try {
+      return source.readByteString();
+    } catch (IOException e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Read a representation, binding its properties to the given type. The returned representation is
+   * lazy, the properties are only bound when the value is first requested.
+   */
   public <T> ResourceRepresentation<T> read(
       ByteString byteString, Class<T> classType, Supplier<T> defaultValue) {
     return read(byteString).map(readByteStringAs(mapper, classType, defaultValue));
   }
 
+  /**
+   * Read a representation, binding its properties to the given type. The returned representation is
+   * lazy, the properties are only bound when the value is first requested, at which point any
+   * binding failure is thrown as an {@link UncheckedIOException}.
+   */
   public <T> ResourceRepresentation<T> read(ByteString byteString, Class<T> classType) {
     return read(byteString).map(readByteStringAs(mapper, classType));
   }
 
   public ResourceRepresentation<ByteString> read(ByteString byteString) {
+    return read(byteString, ReadSelection.all());
+  }
+
+  /**
+   * Read only the selected parts of a representation. Links, embedded resources and properties
+   * outside of the selection are skipped over without being copied out of the document.
+   */
+  @SuppressWarnings("unchecked")
+  public ResourceRepresentation<ByteString> read(ByteString byteString, ReadSelection selection) {
+    return (ResourceRepresentation<ByteString>)
+        readDocument(
+            byteString, Binding.RAW, requireNonNull(selection, "selection must not be null"), null);
+  }
+
+  /**
+   * Index a representation for random access to its embedded resources. The document is scanned
+   * once, reading the links and properties of the root resource and recording where each embedded
+   * resource lies in the document; embedded resources are only read when they are accessed. See
+   * {@link IndexedResource}.
+   */
+  public IndexedResource index(ByteString byteString) {
+    EmbeddedRanges ranges = new EmbeddedRanges();
+    @SuppressWarnings("unchecked")
+    ResourceRepresentation<ByteString> resource =
+        (ResourceRepresentation<ByteString>)
+            readDocument(byteString, Binding.RAW, ReadSelection.all(), ranges);
+    return new IndexedResource(this, byteString, resource, ranges.toMap());
+  }
+
+  /** Reads an embedded resource copied out of an indexed document. */
+  @SuppressWarnings("unchecked")
+  ResourceRepresentation<ByteString> readIndexedResource(ByteString item) {
     try {
-      JsonNode rootNode = mapper.readValue(new StringReader(byteString.utf8()), JsonNode.class);
-      return readResource(rootNode).withContent(byteString);
+      return (ResourceRepresentation<ByteString>)
+          readDetachedResource(item, Binding.RAW, ReadSelection.all());
+    } catch (UncheckedIOException e) {
+      throw new RepresentationException(e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  /**
+   * Read a representation, binding its properties to the given type in the same pass over the
+   * document that reads its links and embedded resources. Unlike {@link #read(ByteString, Class)}
+   * the properties are bound immediately, directly from the parsed tokens, so binding failures are
+   * thrown from this method as a {@link RepresentationException}.
+   */
+  public <T> ResourceRepresentation<T> bind(ByteString byteString, Class<T> classType) {
+    return bind(byteString, classType, HashMap.empty());
+  }
+
+  /**
+   * Read a representation, binding its properties to the given type, and the properties of its
+   * embedded resources to the type given for their rel, in a single pass over the document. The
+   * properties of embedded resources whose rel has no type are read as a lazy {@code ByteString} as
+   * with {@link #read(ByteString)}.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> ResourceRepresentation<T> bind(
+      ByteString byteString, Class<T> classType, Map<String, Class<?>> embeddedTypes) {
+    return (ResourceRepresentation<T>)
+        readDocument(
+            byteString,
+            new Binding(
+                requireNonNull(classType, "classType must not be null"),
+                requireNonNull(embeddedTypes, "embeddedTypes must not be null")),
+            ReadSelection.all(),
+            null);
+  }
+
+  /**
+   * Reads a document from tokens already parsed from its source, such as those recorded by a {@link
+   * ResourceFeeder}. The parser must report the byte offsets of the source as its locations.
+   */
+  @SuppressWarnings("unchecked")
+  ResourceRepresentation<ByteString> read(JsonParser tokens, ByteString source) {
+    try {
+      return (ResourceRepresentation<ByteString>)
+          readDocument(tokens, source, Binding.RAW, ReadSelection.all(), null);
     } catch (Exception e) {
       throw new RepresentationException(e.getMessage(), e);
     }
   }
 
-  private ResourceRepresentation<ByteString> readResource(JsonNode rootNode) {
+  private ResourceRepresentation<?> readDocument(
+      ByteString byteString, Binding binding, ReadSelection selection, EmbeddedRanges ranges) {
+    try (JsonParser parser = createParser(byteString)) {
+      return readDocument(parser, byteString, binding, selection, ranges);
+    } catch (Exception e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
 
-    ResourceRepresentation<ByteString> representation =
-        readProperties(rootNode, ResourceRepresentation.empty());
-    representation = readNamespaces(rootNode, representation);
-    representation = readLinks(rootNode, representation);
-    representation = readResources(rootNode, representation);
+  private ResourceRepresentation<?> readDocument(
+      JsonParser parser,
+      ByteString byteString,
+      Binding binding,
+      ReadSelection selection,
+      EmbeddedRanges ranges)
+      throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new RepresentationException("Expected a JSON object at the root of the document.");
+    }
+    return readResource(parser, byteString, true, binding, selection, ranges)
+        .withContent(byteString);
+  }
 
-    return representation;
+  private JsonParser createParser(ByteString byteString) throws IOException {
+    return mapper
+        .getFactory()
+        .createParser(new ByteBufferBackedInputStream(byteString.asByteBuffer()));
   }
 
-  private <T> ResourceRepresentation<T> readNamespaces(
-      JsonNode rootNode, ResourceRepresentation<T> resource) {
-    ResourceRepresentation<T> newRep = resource;
-    if (rootNode.has(LINKS)) {
-      JsonNode linksNode = rootNode.get(LINKS);
-      if (linksNode.has(CURIES)) {
-        JsonNode curieNode = linksNode.get(CURIES);
-
-        if (curieNode.isArray()) {
-          Iterator<JsonNode> values = curieNode.elements();
-          while (values.hasNext()) {
-            JsonNode valueNode = values.next();
-            newRep =
-                newRep.withNamespace(valueNode.get(NAME).asText(), valueNode.get(HREF).asText());
+  /**
+   * Reads a resource from the parser, which must be positioned on the resources opening {@code
+   * START_OBJECT} token. The object is walked exactly once: {@code _links} and {@code _embedded}
+   * are read as they are encountered, and for every other field only its byte range in the source
+   * document is recorded. The property section of the resource is a lazy view over those ranges,
+   * and is only copied out of the source document when the value is first accessed.
+   *
+   * <p>When the binding gives a type for the resource, its properties are instead copied into a
+   * token buffer as they are encountered, and bound to that type once the object ends. Fields
+   * outside of the selection are skipped without recording anything for them. When embedded ranges
+   * are given the embedded resources are not read at all, only their location is recorded.
+   */
+  private ResourceRepresentation<?> readResource(
+      JsonParser parser,
+      ByteString source,
+      boolean parallel,
+      Binding binding,
+      ReadSelection selection,
+      EmbeddedRanges ranges)
+      throws IOException {
+
+    boolean readProperties = selection.includesProperties();
+    PropertyRanges properties =
+        readProperties && binding.type == null ? new PropertyRanges(source) : null;
+    TokenBuffer tokens = readProperties && binding.type != null ? new TokenBuffer(parser) : null;
+    List<Tuple2<String, String>> namespaces = List.empty();
+    List<Link> links = List.empty();
+    List<Tuple2<String, ResourceRepresentation<?>>> resources = List.empty();
+
+    if (tokens != null) {
+      tokens.writeStartObject();
+    }
+
+    long fieldStart = parser.getCurrentLocation().getByteOffset();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken valueToken = parser.nextToken();
+
+      if (LINKS.equals(fieldName)) {
+        if (valueToken == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String rel = parser.getCurrentName();
+            parser.nextToken();
+            if (CURIES.equals(rel)) {
+              namespaces = namespaces.appendAll(readNamespaces(parser));
+            } else {
+              links = links.appendAll(readLinks(parser, rel));
+            }
           }
         } else {
-          newRep = newRep.withNamespace(curieNode.get(NAME).asText(), curieNode.get(HREF).asText());
+          parser.skipChildren();
+        }
+      } else if (EMBEDDED.equals(fieldName)) {
+        if (valueToken == JsonToken.START_OBJECT && ranges != null) {
+          ranges.addAll(parser);
+        } else if (valueToken == JsonToken.START_OBJECT && selection.includesEmbedded()) {
+          resources =
+              resources.appendAll(readResources(parser, source, parallel, binding, selection));
+        } else {
+          parser.skipChildren();
         }
+      } else if (!readProperties) {
+        parser.skipChildren();
+      } else if (tokens != null) {
+        tokens.writeFieldName(fieldName);
+        tokens.copyCurrentStructure(parser);
+      } else {
+        skipValue(parser);
+        properties.add(fieldStart, parser.getCurrentLocation().getByteOffset());
+      }
+
+      fieldStart = parser.getCurrentLocation().getByteOffset();
+    }
+
+    ResourceRepresentation<?> representation;
+    if (tokens != null) {
+      tokens.writeEndObject();
+      try (JsonParser bound = tokens.asParser()) {
+        representation =
+            ResourceRepresentation.empty().withValue(objectReader(binding.type).readValue(bound));
       }
+    } else if (properties != null) {
+      representation = ResourceRepresentation.empty().withLazyValue(properties::toByteString);
+    } else {
+      representation = ResourceRepresentation.empty().withValue(EMPTY_OBJECT);
+    }
+
+    for (Tuple2<String, String> namespace : namespaces) {
+      representation = representation.withNamespace(namespace._1, namespace._2);
+    }
+
+    if (!links.isEmpty()) {
+      representation = representation.withLinks(links);
+    }
+
+    // Embedded resources are trusted, hashing them for duplicate checks would force their values.
+    for (Tuple2<String, ResourceRepresentation<?>> resource : resources) {
+      representation = representation.withTrustedRepresentation(resource._1, resource._2);
     }
-    return newRep;
+
+    return representation;
   }
 
-  private <T> ResourceRepresentation<T> readLinks(
-      JsonNode rootNode, ResourceRepresentation<T> resource) {
+  /**
+   * Consumes the current value, leaving the parser positioned directly after its final byte so that
+   * the current location marks the end of the value.
+   */
+  static void skipValue(JsonParser parser) throws IOException {
+    if (parser.currentToken().isStructStart()) {
+      parser.skipChildren();
+    } else {
+      parser.finishToken();
+    }
+  }
 
-    List<Link> links = List.empty();
+  List<Tuple2<String, String>> readNamespaces(JsonParser parser) throws IOException {
+    List<Tuple2<String, String>> namespaces = List.empty();
+    if (parser.currentToken() == JsonToken.START_ARRAY) {
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        namespaces = namespaces.append(readNamespace(parser));
+      }
+    } else {
+      namespaces = namespaces.append(readNamespace(parser));
+    }
+    return namespaces;
+  }
 
-    if (rootNode.has(LINKS)) {
-      Iterator<Entry<String, JsonNode>> fields = rootNode.get(LINKS).fields();
-      while (fields.hasNext()) {
-        Entry<String, JsonNode> keyNode = fields.next();
-        if (!CURIES.equals(keyNode.getKey())) {
-          if (keyNode.getValue().isArray()) {
-            Iterator<JsonNode> values = keyNode.getValue().elements();
-            while (values.hasNext()) {
-              links = links.append(jsonLink(keyNode.getKey(), values.next()));
-            }
-          } else {
-            links = links.append(jsonLink(keyNode.getKey(), keyNode.getValue()));
-          }
-        }
+  private Tuple2<String, String> readNamespace(JsonParser parser) throws IOException {
+    Map<String, String> properties = readObjectAsText(parser);
+    return Tuple.of(
+        properties.get(NAME).getOrElseThrow(() -> missingField(CURIES, NAME)),
+        properties.get(HREF).getOrElseThrow(() -> missingField(CURIES, HREF)));
+  }
+
+  List<Link> readLinks(JsonParser parser, String rel) throws IOException {
+    List<Link> links = List.empty();
+    if (parser.currentToken() == JsonToken.START_ARRAY) {
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        links = links.append(jsonLink(parser, rel));
       }
+    } else {
+      links = links.append(jsonLink(parser, rel));
     }
+    return links;
+  }
 
-    return links.isEmpty() ? resource : resource.withLinks(links);
+  private Link jsonLink(JsonParser parser, String rel) throws IOException {
+    Map<String, String> properties = readObjectAsText(parser);
+    String href = properties.get(HREF).getOrElseThrow(() -> missingField(rel, HREF));
+    return Links.create(rel, href, properties);
   }
 
-  private Link jsonLink(String rel, JsonNode node) {
-    String href = node.get(HREF).asText();
+  private static RepresentationException missingField(String rel, String field) {
+    return new RepresentationException(String.format("Link %s is missing %s.", rel, field));
+  }
 
+  /** Reads a flat JSON object into a map of each fields textual value. */
+  private Map<String, String> readObjectAsText(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new RepresentationException(
+          String.format("Expected a JSON object but found %s.", parser.currentToken()));
+    }
     Map<String, String> properties = HashMap.empty();
-    Iterator<Entry<String, JsonNode>> fields = node.fields();
-    while (fields.hasNext()) {
-      Entry<String, JsonNode> keyNode = fields.next();
-      properties = properties.put(keyNode.getKey(), keyNode.getValue().asText());
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token.isStructStart()) {
+        parser.skipChildren();
+        properties = properties.put(name, "");
+      } else if (token == JsonToken.VALUE_NULL) {
+        properties = properties.put(name, "null");
+      } else {
+        properties = properties.put(name, parser.getText());
+      }
     }
+    return properties;
+  }
 
-    return Links.create(rel, href, properties);
+  private List<Tuple2<String, ResourceRepresentation<?>>> readResources(
+      JsonParser parser,
+      ByteString source,
+      boolean parallel,
+      Binding binding,
+      ReadSelection selection)
+      throws IOException {
+    List<Tuple2<String, ResourceRepresentation<?>>> resources = List.empty();
+    ReadSelection nested = selection.nested();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String rel = parser.getCurrentName();
+      if (!selection.includesRel(rel)) {
+        parser.nextToken();
+        parser.skipChildren();
+        continue;
+      }
+      Binding relBinding = binding.forRel(rel);
+      if (parser.nextToken() == JsonToken.START_ARRAY) {
+        if (parallel && embedExecutor != null) {
+          resources =
+              resources.appendAll(
+                  readResourcesInParallel(parser, source, relBinding, nested)
+                      .map(resource -> Tuple.of(rel, resource)));
+        } else {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            resources =
+                resources.append(
+                    Tuple.of(
+                        rel, readEmbeddedResource(parser, source, parallel, relBinding, nested)));
+          }
+        }
+      } else {
+        resources =
+            resources.append(
+                Tuple.of(rel, readEmbeddedResource(parser, source, parallel, relBinding, nested)));
+      }
+    }
+    return resources;
   }
 
-  private ResourceRepresentation<ByteString> readProperties(
-      JsonNode rootNode, ResourceRepresentation<?> resource) {
-    ObjectNode propertyNode = rootNode.deepCopy();
-    propertyNode.remove("_links");
-    propertyNode.remove("_embedded");
+  /**
+   * Reads the items of an embedded array, with the parser positioned on its opening {@code
+   * START_ARRAY} token. Items are read in place on the calling thread until the parallel threshold
+   * is reached, so smaller arrays are parsed exactly once. The remaining items of a larger array
+   * are scanned to find their extent in the source and split into contiguous sub-ranges, each read
+   * on the embed executor. Either way the items are returned in document order.
+   */
+  private List<ResourceRepresentation<?>> readResourcesInParallel(
+      JsonParser parser, ByteString source, Binding binding, ReadSelection selection)
+      throws IOException {
+    List<ResourceRepresentation<?>> leading = List.empty();
+    JsonToken token = parser.nextToken();
+    for (int read = 1; token != JsonToken.END_ARRAY && read < parallelThreshold; read++) {
+      leading = leading.append(readEmbeddedResource(parser, source, false, binding, selection));
+      token = parser.nextToken();
+    }
+    if (token == JsonToken.END_ARRAY) {
+      return leading;
+    }
 
+    int[] ranges = new int[16];
+    int size = 0;
+    for (; token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+      if (token != JsonToken.START_OBJECT) {
+        throw new RepresentationException(
+            String.format("Expected an embedded JSON object but found %s.", token));
+      }
+      if (size == ranges.length) {
+        ranges = Arrays.copyOf(ranges, size * 2);
+      }
+      ranges[size++] = (int) parser.getTokenLocation().getByteOffset();
+      parser.skipChildren();
+      ranges[size++] = (int) parser.getCurrentLocation().getByteOffset();
+    }
+
+    int items = size / 2;
+    int[] offsets = ranges;
+    int chunk = parallelism > 0 ? (items + parallelism - 1) / parallelism : parallelThreshold;
+    List<CompletableFuture<List<ResourceRepresentation<?>>>> chunks = List.empty();
     try {
-      return resource.withValue(encodeUtf8(mapper.writeValueAsString(propertyNode)));
-    } catch (JsonProcessingException e) {
+      for (int from = 0; from < items; from += chunk) {
+        int start = from;
+        int end = Math.min(from + chunk, items);
+        chunks =
+            chunks.append(
+                CompletableFuture.supplyAsync(
+                    () -> readDetachedResources(source, offsets, start, end, binding, selection),
+                    embedExecutor));
+      }
+
+      List<ResourceRepresentation<?>> resources = leading;
+      for (CompletableFuture<List<ResourceRepresentation<?>>> resourceChunk : chunks) {
+        resources = resources.appendAll(resourceChunk.join());
+      }
+      return resources;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    } finally {
+      chunks.forEach(resourceChunk -> resourceChunk.cancel(false));
+    }
+  }
+
+  /** Reads the items in a sub-range of the recorded item ranges of an embedded array. */
+  private List<ResourceRepresentation<?>> readDetachedResources(
+      ByteString source, int[] ranges, int from, int to, Binding binding, ReadSelection selection) {
+    List<ResourceRepresentation<?>> resources = List.empty();
+    for (int i = from; i < to; i++) {
+      resources =
+          resources.append(
+              readDetachedResource(
+                  source.substring(ranges[i * 2], ranges[i * 2 + 1]), binding, selection));
+    }
+    return resources;
+  }
+
+  /** Reads an embedded resource copied out of its enclosing document. */
+  private ResourceRepresentation<?> readDetachedResource(
+      ByteString item, Binding binding, ReadSelection selection) {
+    try (JsonParser parser = createParser(item)) {
+      parser.nextToken();
+      return readResource(parser, item, false, binding, selection, null);
+    } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
-  private <T> ResourceRepresentation<T> readResources(
-      JsonNode rootNode, ResourceRepresentation<T> resource) {
-    if (rootNode.has(EMBEDDED)) {
-      ResourceRepresentation<T> newResource = resource;
-      Iterator<Entry<String, JsonNode>> fields = rootNode.get(EMBEDDED).fields();
-      while (fields.hasNext()) {
-        Entry<String, JsonNode> keyNode = fields.next();
-        if (keyNode.getValue().isArray()) {
-          Iterator<JsonNode> values = keyNode.getValue().elements();
-          while (values.hasNext()) {
-            JsonNode valueNode = values.next();
-            newResource = newResource.withRepresentation(keyNode.getKey(), readResource(valueNode));
+  private ResourceRepresentation<?> readEmbeddedResource(
+      JsonParser parser,
+      ByteString source,
+      boolean parallel,
+      Binding binding,
+      ReadSelection selection)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new RepresentationException(
+          String.format("Expected an embedded JSON object but found %s.", parser.currentToken()));
+    }
+    return readResource(parser, source, parallel, binding, selection, null);
+  }
+
+  private ObjectReader objectReader(Class<?> type) {
+    return objectReaders.computeIfAbsent(type, mapper::readerFor);
+  }
+
+  /**
+   * The types to bind properties to while reading: the type of the resource being read, or null to
+   * read its properties as a {@code ByteString}, and the types of embedded resources by rel.
+   */
+  private static final class Binding {
+
+    private static final Binding RAW = new Binding(null, HashMap.empty());
+
+    private final Class<?> type;
+
+    private final Map<String, Class<?>> embeddedTypes;
+
+    private Binding(Class<?> type, Map<String, Class<?>> embeddedTypes) {
+      this.type = type;
+      this.embeddedTypes = embeddedTypes;
+    }
+
+    private Binding forRel(String rel) {
+      return embeddedTypes.isEmpty()
+          ? RAW
+          : new Binding(embeddedTypes.get(rel).getOrNull(), embeddedTypes);
+    }
+  }
+
+  /**
+   * The byte ranges of the embedded resources of an indexed document, by rel in document order.
+   * Each resource is skipped over to find its extent, without reading any of its content.
+   */
+  private static final class EmbeddedRanges {
+
+    private final LinkedHashMap<String, int[]> ranges = new LinkedHashMap<>();
+
+    private final LinkedHashMap<String, Integer> sizes = new LinkedHashMap<>();
+
+    private void addAll(JsonParser parser) throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String rel = parser.getCurrentName();
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            add(rel, parser);
           }
         } else {
-          newResource =
-              newResource.withRepresentation(keyNode.getKey(), readResource(keyNode.getValue()));
+          add(rel, parser);
         }
       }
-      return newResource;
-    } else {
-      return resource;
+    }
+
+    private void add(String rel, JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw new RepresentationException(
+            String.format("Expected an embedded JSON object but found %s.", parser.currentToken()));
+      }
+      int start = (int) parser.getTokenLocation().getByteOffset();
+      parser.skipChildren();
+      int end = (int) parser.getCurrentLocation().getByteOffset();
+
+      int[] offsets = ranges.computeIfAbsent(rel, r -> new int[8]);
+      int size = sizes.getOrDefault(rel, 0);
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+        ranges.put(rel, offsets);
+      }
+      offsets[size++] = start;
+      offsets[size++] = end;
+      sizes.put(rel, size);
+    }
+
+    /** The recorded ranges, each rel mapped to its start and end offsets in pairs. */
+    private LinkedHashMap<String, int[]> toMap() {
+      ranges.replaceAll((rel, offsets) -> Arrays.copyOf(offsets, sizes.get(rel)));
+      return ranges;
+    }
+  }
+
+  /**
+   * The byte ranges of a resources property fields within the source document. Each range starts
+   * directly after the previous token, so any leading whitespace and separating comma is trimmed as
+   * the range is recorded.
+   */
+  private static final class PropertyRanges {
+
+    private final ByteString source;
+
+    private int[] ranges = new int[8];
+
+    private int size;
+
+    private PropertyRanges(ByteString source) {
+      this.source = source;
+    }
+
+    private void add(long start, long end) {
+      int from = (int) start;
+      while (from < end && isSeparator(source.getByte(from))) {
+        from++;
+      }
+      if (size == ranges.length) {
+        ranges = Arrays.copyOf(ranges, size * 2);
+      }
+      ranges[size++] = from;
+      ranges[size++] = (int) end;
+    }
+
+    private static boolean isSeparator(byte b) {
+      return b == ',' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Copies the recorded fields out of the source document as a standalone JSON object. The ranges
+     * are read through views over the source, so each byte is copied exactly once, straight into
+     * the array backing the returned {@code ByteString}.
+     */
+    private ByteString toByteString() {
+      if (size == 0) {
+        return EMPTY_OBJECT;
+      }
+      ByteBuffer[] chunks = new ByteBuffer[size + 1];
+      int length = 0;
+      for (int i = 0; i < size; i += 2) {
+        chunks[i] = ByteBuffer.wrap(i == 0 ? OPEN : SEPARATOR);
+        chunks[i + 1] = range(ranges[i], ranges[i + 1]);
+        length += 1 + ranges[i + 1] - ranges[i];
+      }
+      chunks[size] = ByteBuffer.wrap(CLOSE);
+      try {
+        return ByteString.read(new ChunksInputStream(chunks), length + 1);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private ByteBuffer range(int start, int end) {
+      ByteBuffer range = source.asByteBuffer();
+      range.limit(end).position(start);
+      return range;
+    }
+  }
+
+  /** Reads a sequence of buffers as a single stream, copying directly out of each buffer. */
+  static final class ChunksInputStream extends InputStream {
+
+    private final ByteBuffer[] chunks;
+
+    private int chunk;
+
+    ChunksInputStream(ByteBuffer... chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public int read() {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      while (chunk < chunks.length && !chunks[chunk].hasRemaining()) {
+        chunk++;
+      }
+      if (chunk == chunks.length) {
+        return -1;
+      }
+      int read = Math.min(length, chunks[chunk].remaining());
+      chunks[chunk].get(bytes, offset, read);
+      return read;
     }
   }
 }
@@ -1,10 +1,22 @@
 package com.theoryinpractise.halbuilder5.json;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.util.NameTransformer;
 import com.theoryinpractise.halbuilder5.Link;
 import com.theoryinpractise.halbuilder5.Links;
 import com.theoryinpractise.halbuilder5.Rel;
@@ -14,31 +26,75 @@ import com.theoryinpractise.halbuilder5.ResourceRepresentation;
 import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
+import io.vavr.control.Option;
 import okio.Buffer;
+import okio.BufferedSink;
 import okio.ByteString;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
 
 import static com.theoryinpractise.halbuilder5.Link.HREF;
-import static com.theoryinpractise.halbuilder5.Support.CURIES;
 import static com.theoryinpractise.halbuilder5.Support.EMBEDDED;
 import static com.theoryinpractise.halbuilder5.Support.LINKS;
 import static com.theoryinpractise.halbuilder5.Support.TEMPLATED;
+import static com.theoryinpractise.halbuilder5.Support.checkRelType;
 import static com.theoryinpractise.halbuilder5.Support.defaultObjectMapper;
+import static java.util.Objects.requireNonNull;
 
 public final class JsonRepresentationWriter {
 
-  private ObjectMapper codec;
+  private final ObjectMapper codec;
 
-  private JsonRepresentationWriter(ObjectMapper codec) {
+  private final OutputProfile profile;
+
+  private final ObjectWriter objectWriter;
+
+  private final ObjectWriter streamWriter;
+
+  private final FragmentCache fragmentCache;
+
+  private final ObjectWriter fragmentWriter;
+
+  private final ForkJoinPool embedPool;
+
+  private final int parallelThreshold;
+
+  private final Projection projection;
+
+  private final ConcurrentMap<Class<?>, Option<JsonSerializer<Object>>> propertySerializers =
+      new ConcurrentHashMap<>();
+
+  private JsonRepresentationWriter(
+      ObjectMapper codec,
+      OutputProfile profile,
+      FragmentCache fragmentCache,
+      ForkJoinPool embedPool,
+      int parallelThreshold,
+      Projection projection) {
     this.codec = codec;
+    this.profile = profile;
+    this.objectWriter = profile.writerFor(codec);
+    this.streamWriter = objectWriter.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.fragmentCache = fragmentCache;
+    this.fragmentWriter = OutputProfile.compact().writerFor(codec);
+    this.embedPool = embedPool;
+    this.parallelThreshold = parallelThreshold;
+    this.projection = projection;
   }
 
   public static JsonRepresentationWriter create() {
@@ -50,24 +106,281 @@ public final class JsonRepresentationWriter {
   }
 
   public static JsonRepresentationWriter create(ObjectMapper objectMapper) {
-    return new JsonRepresentationWriter(objectMapper);
+    return create(objectMapper, OutputProfile.pretty());
+  }
+
+  public static JsonRepresentationWriter create(OutputProfile profile) {
+    return create(defaultObjectMapper(), profile);
+  }
+
+  public static JsonRepresentationWriter create(OutputProfile profile, Module... modules) {
+    return create(defaultObjectMapper(modules), profile);
+  }
+
+  /**
+   * Creates a writer laying out documents according to the given profile. The underlying {@link
+   * ObjectWriter} is built once here and shared by every subsequent write.
+   */
+  public static JsonRepresentationWriter create(ObjectMapper objectMapper, OutputProfile profile) {
+    return new JsonRepresentationWriter(
+        requireNonNull(objectMapper, "objectMapper must not be null"),
+        requireNonNull(profile, "profile must not be null"),
+        null,
+        null,
+        0,
+        Projection.all());
+  }
+
+  public OutputProfile getOutputProfile() {
+    return profile;
+  }
+
+  /**
+   * Returns a writer which renders embedded representations through the given cache, splicing in
+   * the previously serialised JSON of any representation it has already rendered as raw bytes.
+   *
+   * <p>The cache only applies under the compact profile. Indented output depends on the nesting of
+   * each fragment, so other profiles always render embedded representations directly.
+   */
+  public JsonRepresentationWriter withFragmentCache(FragmentCache fragmentCache) {
+    return new JsonRepresentationWriter(
+        codec,
+        profile,
+        requireNonNull(fragmentCache, "fragmentCache must not be null"),
+        embedPool,
+        parallelThreshold,
+        projection);
+  }
+
+  /**
+   * Returns a writer which renders embedded collections of at least {@code threshold} resources in
+   * parallel on the given pool. Each resource is rendered to an independent fragment, and the
+   * fragments are written in the order prescribed by the collections rel, so the output is the same
+   * as when rendering sequentially. Smaller collections are rendered sequentially.
+   *
+   * <p>Parallel rendering only applies under the compact profile, where fragments are spliced into
+   * the document as raw bytes. Indented output depends on the nesting of each fragment, so other
+   * profiles always render sequentially.
+   */
+  public JsonRepresentationWriter withParallelEmbeds(ForkJoinPool pool, int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be at least 1.");
+    }
+    return new JsonRepresentationWriter(
+        codec,
+        profile,
+        fragmentCache,
+        requireNonNull(pool, "pool must not be null"),
+        threshold,
+        projection);
+  }
+
+  /** Renders embedded collections in parallel on the common pool. */
+  public JsonRepresentationWriter withParallelEmbeds(int threshold) {
+    return withParallelEmbeds(ForkJoinPool.commonPool(), threshold);
+  }
+
+  /**
+   * Returns a writer which writes only the parts of each representation selected by the projection.
+   * Excluded properties, links and embedded resources are skipped without being serialised.
+   * Projected resources are always rendered directly, bypassing any fragment cache, as cached
+   * fragments hold the whole resource.
+   */
+  public JsonRepresentationWriter withProjection(Projection projection) {
+    return new JsonRepresentationWriter(
+        codec,
+        profile,
+        fragmentCache,
+        embedPool,
+        parallelThreshold,
+        requireNonNull(projection, "projection must not be null"));
   }
 
   public ByteString print(ResourceRepresentation<?> representation) {
     Buffer buffer = new Buffer();
-    write(representation, new OutputStreamWriter(buffer.outputStream(), StandardCharsets.UTF_8));
+    write(representation, buffer);
     return buffer.readByteString();
   }
 
   public void write(ResourceRepresentation representation, Writer writer) {
     try {
-      ObjectNode resourceNode = renderJson(representation, false);
-      codec.writerWithDefaultPrettyPrinter().writeValue(writer, resourceNode);
+      objectWriter.writeValue(
+          writer, new StreamingRepresentation(representation, false, projection));
+    } catch (IOException e) {
+      throw new RepresentationException(e);
+    }
+  }
+
+  /**
+   * Writes the representation as UTF-8 encoded bytes directly to the given stream. The stream is
+   * flushed but left open, so further content may be written to it.
+   */
+  public void write(ResourceRepresentation<?> representation, OutputStream outputStream) {
+    try {
+      streamWriter.writeValue(
+          outputStream, new StreamingRepresentation(representation, false, projection));
+    } catch (IOException e) {
+      throw new RepresentationException(e);
+    }
+  }
+
+  /**
+   * Writes the representation as UTF-8 encoded bytes directly into the given sink. The sink is
+   * flushed but left open.
+   */
+  public void write(ResourceRepresentation<?> representation, BufferedSink sink) {
+    write(representation, sink.outputStream());
+  }
+
+  /**
+   * Writes the representation as UTF-8 encoded bytes to the given channel. The channel is left
+   * open. This is not a {@code write} overload, as an okio {@code Buffer} is both a sink and a
+   * channel.
+   */
+  public void writeToChannel(
+      ResourceRepresentation<?> representation, WritableByteChannel channel) {
+    write(representation, Channels.newOutputStream(channel));
+  }
+
+  /**
+   * Writes the representation to the stream, followed by an {@code _embedded} array for the given
+   * rel whose resources are pulled from the iterator one at a time. Each resource is written and
+   * flushed through to the stream as soon as it is pulled, so the start of the document is sent
+   * before the iterator is exhausted and only a single resource is held in memory at once. The
+   * iterator is consumed only as fast as the stream accepts writes.
+   *
+   * <p>When the writer's projection excludes the rel, or embedded resources altogether, no array is
+   * written and no resources are pulled from the iterator. The iterator is closed if it is {@link
+   * AutoCloseable}, and otherwise left unconsumed.
+   *
+   * @throws IllegalArgumentException if the representation already embeds resources for the rel.
+   */
+  public void write(
+      ResourceRepresentation<?> representation,
+      String rel,
+      Iterator<? extends ResourceRepresentation<?>> resources,
+      OutputStream outputStream) {
+    checkRelType(rel);
+    if (representation.getResources().containsKey(rel)) {
+      throw new IllegalArgumentException(
+          String.format("Representation already embeds resources for rel %s.", rel));
+    }
+    try {
+      streamWriter.writeValue(
+          outputStream,
+          new StreamingRepresentation(representation, false, projection, rel, resources));
     } catch (IOException e) {
       throw new RepresentationException(e);
     }
   }
 
+  public void write(
+      ResourceRepresentation<?> representation,
+      String rel,
+      Iterator<? extends ResourceRepresentation<?>> resources,
+      BufferedSink sink) {
+    write(representation, rel, resources, sink.outputStream());
+  }
+
+  /**
+   * Adapts a representation to Jackson's {@link JsonSerializable} contract so that the configured
+   * {@code ObjectWriter} drives a single {@link JsonGenerator} over the whole document, rather than
+   * first materialising an intermediate {@code ObjectNode} tree.
+   */
+  private final class StreamingRepresentation implements JsonSerializable {
+
+    private final ResourceRepresentation<?> representation;
+
+    private final boolean embedded;
+
+    private final Projection projection;
+
+    private final String streamedRel;
+
+    private final Iterator<? extends ResourceRepresentation<?>> streamedResources;
+
+    private StreamingRepresentation(
+        ResourceRepresentation<?> representation, boolean embedded, Projection projection) {
+      this(representation, embedded, projection, null, null);
+    }
+
+    private StreamingRepresentation(
+        ResourceRepresentation<?> representation,
+        boolean embedded,
+        Projection projection,
+        String streamedRel,
+        Iterator<? extends ResourceRepresentation<?>> streamedResources) {
+      this.representation = representation;
+      this.embedded = embedded;
+      this.projection = projection;
+      this.streamedRel = streamedRel;
+      this.streamedResources = streamedResources;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+      if (streamedResources == null) {
+        renderJson(generator, provider, representation, embedded, projection);
+      } else {
+        generator.writeStartObject();
+
+        List<Tuple2<String, List<Link>>> linkGroups = linkGroups(representation, false, projection);
+        List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups =
+            resourceGroups(representation, projection);
+        boolean streamed = projection.includesEmbedded() && projection.includesRel(streamedRel);
+        boolean embeds = streamed || !resourceGroups.isEmpty();
+
+        renderJsonProperties(
+            generator, provider, representation, embeds || !linkGroups.isEmpty(), projection);
+        renderJsonLinks(generator, representation, linkGroups);
+
+        if (embeds) {
+          generator.writeObjectFieldStart(EMBEDDED);
+          renderJsonEmbedEntries(
+              generator, provider, representation, resourceGroups, projection.nested());
+          if (streamed) {
+            generator.writeArrayFieldStart(streamedRel);
+            generator.flush();
+            while (streamedResources.hasNext()) {
+              renderJsonEmbedded(
+                  generator, provider, streamedResources.next(), projection.nested());
+              generator.flush();
+            }
+            generator.writeEndArray();
+          }
+          generator.writeEndObject();
+        }
+
+        generator.writeEndObject();
+
+        if (!streamed) {
+          discard(streamedResources);
+        }
+      }
+    }
+
+    /** Closes a stream the projection excludes, without pulling any of its resources. */
+    private void discard(Iterator<? extends ResourceRepresentation<?>> resources)
+        throws IOException {
+      if (resources instanceof AutoCloseable) {
+        try {
+          ((AutoCloseable) resources).close();
+        } catch (IOException | RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IOException(e);
+        }
+      }
+    }
+
+    @Override
+    public void serializeWithType(
+        JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+        throws IOException {
+      serialize(generator, provider);
+    }
+  }
+
   private static final Function<Rel, Boolean> isSingletonF =
       Rels.cases().singleton_(true).otherwise_(false);
 
@@ -82,70 +395,200 @@ public final class JsonRepresentationWriter {
     return isCollectionF.apply(rel);
   }
 
-  private ObjectNode renderJson(ResourceRepresentation<?> representation, boolean embedded) {
+  private void renderJson(
+      JsonGenerator generator,
+      SerializerProvider provider,
+      ResourceRepresentation<?> representation,
+      boolean embedded,
+      Projection projection)
+      throws IOException {
+
+    generator.writeStartObject();
 
-    ObjectNode objectNode = codec.getNodeFactory().objectNode();
+    List<Tuple2<String, List<Link>>> linkGroups = linkGroups(representation, embedded, projection);
+    List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups =
+        resourceGroups(representation, projection);
+    boolean fieldsFollow = !linkGroups.isEmpty() || !resourceGroups.isEmpty();
 
-    renderJsonProperties(objectNode, representation);
-    renderJsonLinks(objectNode, representation, embedded);
-    renderJsonEmbeds(objectNode, representation);
+    renderJsonProperties(generator, provider, representation, fieldsFollow, projection);
+    renderJsonLinks(generator, representation, linkGroups);
+    renderJsonEmbeds(generator, provider, representation, resourceGroups, projection.nested());
 
-    return objectNode;
+    generator.writeEndObject();
   }
 
-  private void renderJsonEmbeds(ObjectNode objectNode, ResourceRepresentation<?> representation) {
-    if (!representation.getResources().isEmpty()) {
+  /** The link groups of the representation written under the projection. */
+  private static List<Tuple2<String, List<Link>>> linkGroups(
+      ResourceRepresentation<?> representation, boolean embedded, Projection projection) {
+    // Namespaces are included as curies links when not embedded
+    List<Tuple2<String, List<Link>>> linkGroups = representation.getLinkGroups(!embedded);
+    return projection.isAll()
+        ? linkGroups
+        : linkGroups.filter(linkGroup -> projection.includesLink(linkGroup._1));
+  }
 
-      // TODO toJavaMap is kinda nasty
-      Map<String, Collection<ResourceRepresentation<?>>> resourceMap =
-          representation.getResources().toJavaMap();
+  /** The embedded resource groups of the representation written under the projection. */
+  private static List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups(
+      ResourceRepresentation<?> representation, Projection projection) {
+    if (projection.isAll()) {
+      return representation.getResourceGroups();
+    }
+    return projection.includesEmbedded()
+        ? representation
+            .getResourceGroups()
+            .filter(resourceGroup -> projection.includesRel(resourceGroup._1))
+        : List.empty();
+  }
 
-      ObjectNode embedsNode = codec.createObjectNode();
-      objectNode.set(EMBEDDED, embedsNode);
+  private void renderJsonEmbeds(
+      JsonGenerator generator,
+      SerializerProvider provider,
+      ResourceRepresentation<?> representation,
+      List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups,
+      Projection projection)
+      throws IOException {
+    if (!resourceGroups.isEmpty()) {
+      generator.writeObjectFieldStart(EMBEDDED);
+      renderJsonEmbedEntries(generator, provider, representation, resourceGroups, projection);
+      generator.writeEndObject();
+    }
+  }
 
-      for (Map.Entry<String, Collection<ResourceRepresentation<?>>> resourceEntry :
-          resourceMap.entrySet()) {
+  private void renderJsonEmbedEntries(
+      JsonGenerator generator,
+      SerializerProvider provider,
+      ResourceRepresentation<?> representation,
+      List<Tuple2<String, List<ResourceRepresentation<?>>>> resourceGroups,
+      Projection projection)
+      throws IOException {
+    for (Tuple2<String, List<ResourceRepresentation<?>>> resourceEntry : resourceGroups) {
 
-        Rel rel = representation.getRels().get(resourceEntry.getKey()).get();
+      Rel rel = representation.getRels().get(resourceEntry._1).get();
 
-        boolean coalesce =
-            !isCollection(rel) && (isSingleton(rel) || resourceEntry.getValue().size() == 1);
+      boolean coalesce = !isCollection(rel) && (isSingleton(rel) || resourceEntry._2.size() == 1);
 
-        if (coalesce) {
-          ResourceRepresentation<?> subRepresentation = resourceEntry.getValue().iterator().next();
-          ObjectNode embeddedNode = renderJson(subRepresentation, true);
-          embedsNode.set(resourceEntry.getKey(), embeddedNode);
+      if (coalesce) {
+        generator.writeFieldName(resourceEntry._1);
+        renderJsonEmbedded(generator, provider, resourceEntry._2.head(), projection);
+      } else {
+        generator.writeArrayFieldStart(rel.rel());
+
+        if (embedPool != null
+            && profile.isCompact()
+            && resourceEntry._2.size() >= parallelThreshold) {
+          renderJsonEmbeddedInParallel(generator, resourceEntry._2, projection);
         } else {
+          for (ResourceRepresentation<?> subRepresentation : resourceEntry._2) {
+            renderJsonEmbedded(generator, provider, subRepresentation, projection);
+          }
+        }
 
-          List<ResourceRepresentation<?>> values =
-              Rels.getComparator(rel)
-                  .transform(
-                      comp ->
-                          comp.isDefined()
-                              ? List.ofAll(resourceEntry.getValue()).sorted(comp.get())
-                              : List.ofAll(resourceEntry.getValue()));
+        generator.writeEndArray();
+      }
+    }
+  }
 
-          ArrayNode embedArrayNode = codec.createArrayNode();
-          embedsNode.set(rel.rel(), embedArrayNode);
+  private void renderJsonEmbedded(
+      JsonGenerator generator,
+      SerializerProvider provider,
+      ResourceRepresentation<?> representation,
+      Projection projection)
+      throws IOException {
+    if (fragmentCache == null || !profile.isCompact() || !projection.isAll()) {
+      renderJson(generator, provider, representation, true, projection);
+    } else {
+      writeFragment(generator, renderFragment(representation, projection));
+    }
+  }
 
-          for (ResourceRepresentation<?> subRepresentation : values) {
-            ObjectNode embeddedNode = renderJson(subRepresentation, true);
-            embedArrayNode.add(embeddedNode);
-          }
-        }
+  /** Renders each of the resources as a fragment on the embed pool, preserving their order. */
+  private void renderJsonEmbeddedInParallel(
+      JsonGenerator generator,
+      List<ResourceRepresentation<?>> representations,
+      Projection projection)
+      throws IOException {
+    List<ForkJoinTask<SerializedString>> tasks =
+        representations.map(
+            representation -> embedPool.submit(() -> renderFragment(representation, projection)));
+    try {
+      for (ForkJoinTask<SerializedString> task : tasks) {
+        writeFragment(generator, task.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted rendering embedded resources.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RepresentationException(cause);
+    } finally {
+      tasks.forEach(task -> task.cancel(false));
+    }
+  }
+
+  private SerializedString renderFragment(
+      ResourceRepresentation<?> representation, Projection projection) throws IOException {
+    boolean cached = fragmentCache != null && projection.isAll();
+    SerializedString fragment = cached ? fragmentCache.get(representation) : null;
+    if (fragment == null) {
+      fragment =
+          new SerializedString(
+              fragmentWriter.writeValueAsString(
+                  new StreamingRepresentation(representation, true, projection)));
+      if (cached) {
+        fragmentCache.put(representation, fragment);
       }
     }
+    return fragment;
+  }
+
+  /** Writes a compact fragment as a value, splicing in its bytes without re-parsing them. */
+  private void writeFragment(JsonGenerator generator, SerializedString fragment)
+      throws IOException {
+    generator.writeRawValue(fragment);
   }
 
   private void renderJsonProperties(
-      ObjectNode objectNode, ResourceRepresentation<?> representation) {
-    JsonNode tree = codec.valueToTree(representation.get());
+      JsonGenerator generator,
+      SerializerProvider provider,
+      ResourceRepresentation<?> representation,
+      boolean fieldsFollow,
+      Projection projection)
+      throws IOException {
+    Object value = representation.get();
+    if (value == null) {
+      return;
+    }
+
+    if (!projection.includesAllFields()) {
+      renderProjectedJsonProperties(generator, provider, value, projection);
+      return;
+    }
+
+    if (value instanceof ByteString) {
+      renderRawJsonProperties(generator, (ByteString) value, fieldsFollow);
+      return;
+    }
+
+    Option<JsonSerializer<Object>> serializer = propertySerializer(provider, value.getClass());
+    if (serializer.isDefined()) {
+      serializer.get().serialize(value, generator, provider);
+      return;
+    }
+
+    JsonNode tree = codec.valueToTree(value);
     if (tree != null) {
       if (tree.isObject()) {
         Iterator<Map.Entry<String, JsonNode>> fields = tree.fields();
         while (fields.hasNext()) {
           Map.Entry<String, JsonNode> next = fields.next();
-          objectNode.set(next.getKey(), next.getValue());
+          generator.writeFieldName(next.getKey());
+          provider.defaultSerializeValue(next.getValue(), generator);
         }
       } else {
         throw new IllegalStateException("Unable to serialise a non Object Node");
@@ -153,63 +596,317 @@ public final class JsonRepresentationWriter {
     }
   }
 
-  private void renderJsonLinks(
-      ObjectNode objectNode, ResourceRepresentation<?> representation, boolean embedded) {
-    if (!representation.getLinks().isEmpty()
-        || (!embedded && !representation.getNamespaces().isEmpty())) {
+  /**
+   * Writes the fields of a {@code ByteString} value, holding an encoded JSON object such as the
+   * properties read by {@link JsonRepresentationReader}, into the enclosing resource object. When
+   * no pretty printer is in use the fields are spliced in verbatim as UTF-8 bytes, without being
+   * parsed or decoded, along with the separating comma the generator would otherwise write before
+   * the fields following them. Otherwise the fields are copied token by token so that the pretty
+   * printer applies.
+   */
+  private void renderRawJsonProperties(
+      JsonGenerator generator, ByteString json, boolean fieldsFollow) throws IOException {
+    if (generator.getPrettyPrinter() != null) {
+      try (JsonParser parser = createParser(json)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IllegalStateException("Unable to serialise a non Object Node");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          generator.writeFieldName(parser.getCurrentName());
+          parser.nextToken();
+          copyValue(parser, generator);
+        }
+      }
+      return;
+    }
+
+    int start = skipWhitespace(json, 0, 1);
+    int end = skipWhitespace(json, json.size() - 1, -1);
+    if (start > end || json.getByte(start) != '{' || json.getByte(end) != '}') {
+      throw new IllegalStateException("Unable to serialise a non Object Node");
+    }
+    start = skipWhitespace(json, start + 1, 1);
+    end = skipWhitespace(json, end - 1, -1);
+    if (start <= end) {
+      byte[] fields = new byte[end - start + 1];
+      ByteBuffer source = json.asByteBuffer();
+      source.position(start);
+      source.get(fields);
+      generator.writeRaw(new RawJson(fields));
+      if (fieldsFollow) {
+        generator.writeRaw(',');
+      }
+    }
+  }
+
+  private static int skipWhitespace(ByteString json, int index, int step) {
+    while (index >= 0 && index < json.size() && isWhitespace(json.getByte(index))) {
+      index += step;
+    }
+    return index;
+  }
 
-      List<Link> links = List.empty();
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  private JsonParser createParser(ByteString json) throws IOException {
+    return codec.getFactory().createParser(new ByteBufferBackedInputStream(json.asByteBuffer()));
+  }
 
-      // Include namespaces as links when not embedded
-      if (!embedded) {
-        links =
-            links.appendAll(
-                representation
-                    .getNamespaces()
-                    .map(ns -> Links.create(CURIES, ns._2, "name", ns._1)));
+  /**
+   * Copies the value at the parser's current token. Unlike {@link
+   * JsonGenerator#copyCurrentStructure}, which reads decimals through a {@code double}, numbers are
+   * written from their source text so they keep their precision.
+   */
+  private static void copyValue(JsonParser parser, JsonGenerator generator) throws IOException {
+    int depth = 0;
+    do {
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+        generator.writeNumber(parser.getText());
+      } else {
+        generator.copyCurrentEvent(parser);
+      }
+      if (token.isStructStart()) {
+        depth++;
+      } else if (token.isStructEnd()) {
+        depth--;
       }
+    } while (depth > 0 && parser.nextToken() != null);
+  }
+
+  /**
+   * Encoded JSON written verbatim through {@link JsonGenerator#writeRaw(SerializableString)}. Byte
+   * oriented generators write the UTF-8 bytes directly, only character oriented generators decode
+   * them. Quoting is delegated to a decoded {@link SerializedString}, as raw JSON is never quoted.
+   */
+  private static final class RawJson implements SerializableString {
+
+    private final byte[] utf8;
+
+    private RawJson(byte[] utf8) {
+      this.utf8 = utf8;
+    }
+
+    private SerializedString decoded() {
+      return new SerializedString(getValue());
+    }
 
-      // Add representation links
-      links = links.appendAll(representation.getLinks());
+    @Override
+    public String getValue() {
+      return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength() {
+      return getValue().length();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+      return decoded().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+      return utf8;
+    }
 
-      // Partition representation links by rel
+    @Override
+    public byte[] asQuotedUTF8() {
+      return decoded().asQuotedUTF8();
+    }
 
-      ObjectNode linksNode = codec.createObjectNode();
-      objectNode.set(LINKS, linksNode);
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+      return decoded().appendQuotedUTF8(buffer, offset);
+    }
 
-      for (Tuple2<String, List<Link>> linkEntry : links.groupBy(Links::getRel).toList()) {
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+      return decoded().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+      if (offset + utf8.length > buffer.length) {
+        return -1;
+      }
+      System.arraycopy(utf8, 0, buffer, offset, utf8.length);
+      return utf8.length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+      return decoded().appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+      return decoded().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+      out.write(utf8);
+      return utf8.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+      return decoded().putQuotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+      if (utf8.length > buffer.remaining()) {
+        return -1;
+      }
+      buffer.put(utf8);
+      return utf8.length;
+    }
+  }
+
+  /**
+   * Writes only the projected fields of a value. Encoded JSON is scanned, skipping excluded fields
+   * without copying them, and beans write only their projected properties. Other values, such as
+   * maps, are rendered through an intermediate tree which is then filtered.
+   */
+  private void renderProjectedJsonProperties(
+      JsonGenerator generator, SerializerProvider provider, Object value, Projection projection)
+      throws IOException {
+    if (value instanceof ByteString) {
+      try (JsonParser parser = createParser((ByteString) value)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IllegalStateException("Unable to serialise a non Object Node");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          parser.nextToken();
+          if (projection.includesField(field)) {
+            generator.writeFieldName(field);
+            copyValue(parser, generator);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+      return;
+    }
+
+    JsonSerializer<Object> serializer =
+        provider.findTypedValueSerializer(value.getClass(), true, null);
+    Iterator<PropertyWriter> properties = serializer.properties();
+    if (properties.hasNext()) {
+      while (properties.hasNext()) {
+        PropertyWriter property = properties.next();
+        if (projection.includesField(property.getName())) {
+          try {
+            property.serializeAsField(value, generator, provider);
+          } catch (IOException | RuntimeException e) {
+            throw e;
+          } catch (Exception e) {
+            throw new RepresentationException(e);
+          }
+        }
+      }
+      return;
+    }
+
+    JsonNode tree = codec.valueToTree(value);
+    if (tree != null) {
+      if (!tree.isObject()) {
+        throw new IllegalStateException("Unable to serialise a non Object Node");
+      }
+      Iterator<Map.Entry<String, JsonNode>> fields = tree.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> next = fields.next();
+        if (projection.includesField(next.getKey())) {
+          generator.writeFieldName(next.getKey());
+          provider.defaultSerializeValue(next.getValue(), generator);
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves, once per value class, a serializer which writes the fields of a value directly into
+   * the enclosing resource object. Values whose serializer cannot be unwrapped, such as maps, trees
+   * or polymorphic types, resolve to none and are rendered through an intermediate tree instead.
+   */
+  private Option<JsonSerializer<Object>> propertySerializer(
+      SerializerProvider provider, Class<?> valueType) throws JsonMappingException {
+    Option<JsonSerializer<Object>> serializer = propertySerializers.get(valueType);
+    if (serializer == null) {
+      JsonSerializer<Object> unwrapping =
+          provider
+              .findTypedValueSerializer(valueType, true, null)
+              .unwrappingSerializer(NameTransformer.NOP);
+      serializer = Option.when(unwrapping.isUnwrappingSerializer(), unwrapping);
+      propertySerializers.putIfAbsent(valueType, serializer);
+    }
+    return serializer;
+  }
+
+  private void renderJsonLinks(
+      JsonGenerator generator,
+      ResourceRepresentation<?> representation,
+      List<Tuple2<String, List<Link>>> linkGroups)
+      throws IOException {
+    if (!linkGroups.isEmpty()) {
+
+      generator.writeObjectFieldStart(LINKS);
+
+      for (Tuple2<String, List<Link>> linkEntry : linkGroups) {
 
         Rel rel = representation.getRels().get(linkEntry._1).get();
         boolean coalesce = !isCollection(rel) && (isSingleton(rel) || linkEntry._2.size() == 1);
 
         if (coalesce) {
-          Link link = linkEntry._2.iterator().next();
+          Link link = linkEntry._2.head();
 
-          ObjectNode linkNode = writeJsonLinkContent(link);
-          linksNode.set(linkEntry._1, linkNode);
+          generator.writeFieldName(linkEntry._1);
+          writeJsonLinkContent(generator, link);
         } else {
-          ArrayNode linkArrayNode = codec.createArrayNode();
+          generator.writeArrayFieldStart(linkEntry._1);
           for (Link link : linkEntry._2) {
-            linkArrayNode.add(writeJsonLinkContent(link));
+            writeJsonLinkContent(generator, link);
           }
-          linksNode.set(linkEntry._1, linkArrayNode);
+          generator.writeEndArray();
         }
       }
+
+      generator.writeEndObject();
     }
   }
 
-  private ObjectNode writeJsonLinkContent(Link link) {
-    ObjectNode linkNode = codec.createObjectNode();
-    linkNode.set(HREF, codec.getNodeFactory().textNode(Links.getHref(link)));
-
+  private void writeJsonLinkContent(JsonGenerator generator, Link link) throws IOException {
     io.vavr.collection.Map<String, String> properties =
         Links.getProperties(link).getOrElse(HashMap.empty());
+    boolean templated = Links.getTemplated(link);
+
+    generator.writeStartObject();
+
+    // Link properties may repeat href or templated, such as links read from an existing document,
+    // these replace the value in place rather than being written as duplicate fields.
+    generator.writeStringField(HREF, properties.get(HREF).getOrElse(Links.getHref(link)));
+    boolean templatedWritten = false;
     for (Tuple2<String, String> prop : properties) {
-      linkNode.set(prop._1, codec.getNodeFactory().textNode(prop._2));
+      if (HREF.equals(prop._1)) {
+        continue;
+      }
+      if (templated && TEMPLATED.equals(prop._1)) {
+        generator.writeBooleanField(TEMPLATED, true);
+        templatedWritten = true;
+      } else {
+        generator.writeStringField(prop._1, prop._2);
+      }
     }
-    if (Links.getTemplated(link)) {
-      linkNode.set(TEMPLATED, codec.getNodeFactory().booleanNode(true));
+    if (templated && !templatedWritten) {
+      generator.writeBooleanField(TEMPLATED, true);
     }
-    return linkNode;
+
+    generator.writeEndObject();
   }
 }
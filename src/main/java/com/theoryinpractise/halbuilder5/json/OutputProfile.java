@@ -0,0 +1,61 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * OutputProfile selects how a {@link JsonRepresentationWriter} lays out the documents it writes:
+ * compact, without any insignificant whitespace, indented with the default pretty printer of the
+ * writer's {@code ObjectMapper}, or with a custom {@link PrettyPrinter}.
+ */
+public final class OutputProfile {
+
+  private static final OutputProfile COMPACT = new OutputProfile(false, null);
+
+  private static final OutputProfile PRETTY = new OutputProfile(true, null);
+
+  private final boolean indented;
+
+  private final PrettyPrinter prettyPrinter;
+
+  private OutputProfile(boolean indented, PrettyPrinter prettyPrinter) {
+    this.indented = indented;
+    this.prettyPrinter = prettyPrinter;
+  }
+
+  /** Writes documents without indentation or line breaks. */
+  public static OutputProfile compact() {
+    return COMPACT;
+  }
+
+  /**
+   * Writes documents using the default pretty printer of the writer's {@code ObjectMapper}, as set
+   * with {@link ObjectMapper#setDefaultPrettyPrinter}, which is Jackson's own unless replaced.
+   */
+  public static OutputProfile pretty() {
+    return PRETTY;
+  }
+
+  /**
+   * Writes documents using the given pretty printer. Printers implementing Jackson's {@code
+   * Instantiatable} are copied for each document written, others are shared between writes.
+   */
+  public static OutputProfile custom(PrettyPrinter prettyPrinter) {
+    return new OutputProfile(true, requireNonNull(prettyPrinter, "prettyPrinter must not be null"));
+  }
+
+  public boolean isCompact() {
+    return !indented;
+  }
+
+  ObjectWriter writerFor(ObjectMapper codec) {
+    if (indented && prettyPrinter == null) {
+      return codec.writerWithDefaultPrettyPrinter();
+    }
+    // An explicit null printer also overrides INDENT_OUTPUT when enabled on the mapper.
+    return codec.writer(prettyPrinter);
+  }
+}
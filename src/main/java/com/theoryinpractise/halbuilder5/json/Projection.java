@@ -0,0 +1,102 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+
+import static com.theoryinpractise.halbuilder5.Link.SELF;
+import static com.theoryinpractise.halbuilder5.Support.CURIES;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Projection limits which parts of a representation a {@link JsonRepresentationWriter} writes, such
+ * as for requests selecting their fields and embedded resources. Properties, links and embedded
+ * resources outside of the projection are never serialised.
+ *
+ * <p>A projection applies at every level of the document: the fields and rels chosen for the root
+ * resource are also those written for each of its embedded resources. The {@code self} link of a
+ * resource, and the {@code curies} of the root resource, are always written.
+ */
+public final class Projection {
+
+  private static final Projection ALL =
+      new Projection(null, null, HashSet.empty(), Integer.MAX_VALUE);
+
+  private final Set<String> fields;
+
+  private final Set<String> includedRels;
+
+  private final Set<String> excludedRels;
+
+  private final int maxDepth;
+
+  private Projection(
+      Set<String> fields, Set<String> includedRels, Set<String> excludedRels, int maxDepth) {
+    this.fields = fields;
+    this.includedRels = includedRels;
+    this.excludedRels = excludedRels;
+    this.maxDepth = maxDepth;
+  }
+
+  /** Writes the whole representation. */
+  public static Projection all() {
+    return ALL;
+  }
+
+  /** Writes only the given properties of each resource. */
+  public Projection withFields(String... fields) {
+    requireNonNull(fields, "fields must not be null");
+    return new Projection(HashSet.of(fields), includedRels, excludedRels, maxDepth);
+  }
+
+  /** Writes only the links and embedded resources with the given rels. */
+  public Projection withRels(String... rels) {
+    requireNonNull(rels, "rels must not be null");
+    return new Projection(fields, HashSet.of(rels), excludedRels, maxDepth);
+  }
+
+  /** Writes no links or embedded resources with the given rels. */
+  public Projection withoutRels(String... rels) {
+    requireNonNull(rels, "rels must not be null");
+    return new Projection(fields, includedRels, excludedRels.addAll(HashSet.of(rels)), maxDepth);
+  }
+
+  /**
+   * Writes embedded resources nested at most the given number of levels below the root resource. A
+   * depth of zero writes no embedded resources at all.
+   */
+  public Projection withMaxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative.");
+    }
+    return new Projection(fields, includedRels, excludedRels, maxDepth);
+  }
+
+  boolean isAll() {
+    return this == ALL;
+  }
+
+  boolean includesAllFields() {
+    return fields == null;
+  }
+
+  boolean includesField(String field) {
+    return fields == null || fields.contains(field);
+  }
+
+  boolean includesLink(String rel) {
+    return SELF.equals(rel) || CURIES.equals(rel) || includesRel(rel);
+  }
+
+  boolean includesRel(String rel) {
+    return (includedRels == null || includedRels.contains(rel)) && !excludedRels.contains(rel);
+  }
+
+  boolean includesEmbedded() {
+    return maxDepth > 0;
+  }
+
+  /** The projection to write the resources embedded one level below the current resource. */
+  Projection nested() {
+    return this == ALL ? ALL : new Projection(fields, includedRels, excludedRels, maxDepth - 1);
+  }
+}
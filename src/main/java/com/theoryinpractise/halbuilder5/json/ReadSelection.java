@@ -0,0 +1,83 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * ReadSelection limits which parts of a document a {@link JsonRepresentationReader} reads. Parts
+ * outside of the selection are skipped over by the parser without being copied or turned into
+ * representations, so reading only the links of a large document costs little more than scanning
+ * it.
+ *
+ * <p>A selection applies at every level of the document: the embedded rels and properties chosen
+ * for the root resource are also those read for each of its embedded resources.
+ */
+public final class ReadSelection {
+
+  private static final ReadSelection ALL = new ReadSelection(true, null, Integer.MAX_VALUE);
+
+  private static final ReadSelection LINKS_ONLY =
+      new ReadSelection(false, HashSet.empty(), Integer.MAX_VALUE);
+
+  private final boolean properties;
+
+  private final Set<String> rels;
+
+  private final int maxDepth;
+
+  private ReadSelection(boolean properties, Set<String> rels, int maxDepth) {
+    this.properties = properties;
+    this.rels = rels;
+    this.maxDepth = maxDepth;
+  }
+
+  /** Reads the whole document. */
+  public static ReadSelection all() {
+    return ALL;
+  }
+
+  /**
+   * Reads only the links and namespaces of the document. The properties of a resource read this way
+   * are an empty JSON object, and no embedded resources are read unless selected with {@link
+   * #withRels(String...)}.
+   */
+  public static ReadSelection linksOnly() {
+    return LINKS_ONLY;
+  }
+
+  /** Reads only the embedded resources with the given rels, skipping all others. */
+  public ReadSelection withRels(String... rels) {
+    requireNonNull(rels, "rels must not be null");
+    return new ReadSelection(properties, HashSet.of(rels), maxDepth);
+  }
+
+  /**
+   * Reads embedded resources nested at most the given number of levels below the root resource. A
+   * depth of zero reads no embedded resources at all.
+   */
+  public ReadSelection withMaxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative.");
+    }
+    return new ReadSelection(properties, rels, maxDepth);
+  }
+
+  boolean includesProperties() {
+    return properties;
+  }
+
+  boolean includesEmbedded() {
+    return maxDepth > 0 && (rels == null || !rels.isEmpty());
+  }
+
+  boolean includesRel(String rel) {
+    return rels == null || rels.contains(rel);
+  }
+
+  /** The selection to read the resources embedded one level below the current resource. */
+  ReadSelection nested() {
+    return this == ALL ? ALL : new ReadSelection(properties, rels, maxDepth - 1);
+  }
+}
@@ -0,0 +1,252 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.theoryinpractise.halbuilder5.RepresentationException;
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationReader.ChunksInputStream;
+import io.vavr.control.Option;
+import okio.ByteString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.theoryinpractise.halbuilder5.Support.LINKS;
+
+/**
+ * ResourceFeeder reads a single HAL document pushed to it in chunks, such as the body of a request
+ * arriving over a non-blocking connection. Each chunk is tokenized by Jackson's non-blocking parser
+ * as it is fed, so the caller never blocks waiting for input, and the representation is returned
+ * from the call that feeds the end of the documents root object.
+ *
+ * <p>The document is only tokenized once: the tokens are recorded as they are parsed, along with
+ * the byte offset each one ends at, and the representation is read from that recording rather than
+ * by parsing the document again. Only the structure of the document is recorded in full. Outside of
+ * {@code _links} the reader takes property values from the document's bytes by their offsets, so
+ * scalar values there are recorded as empty placeholders of the same token type.
+ *
+ * <p>While a document is being fed, the feeder holds a copy of each chunk, as the caller may reuse
+ * its buffer, along with a recorded token and an offset for every token parsed so far. Once the
+ * document is complete the chunks are joined into a single {@code ByteString}, which the
+ * representation keeps as its content, and the chunk copies and the recording are released. Feeding
+ * a document therefore briefly needs about twice its size, plus the recording.
+ *
+ * <p>A feeder is not thread safe, and chunks must be fed in order.
+ */
+public final class ResourceFeeder {
+
+  private final JsonRepresentationReader reader;
+
+  private final JsonParser parser;
+
+  private final ByteArrayFeeder feeder;
+
+  private final TokenBuffer tokens;
+
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+
+  private int[] offsets = new int[64];
+
+  private int size;
+
+  private int depth;
+
+  private boolean linksField;
+
+  private int linksDepth;
+
+  private ResourceRepresentation<ByteString> resource;
+
+  ResourceFeeder(JsonRepresentationReader reader, JsonFactory factory) throws IOException {
+    this.reader = reader;
+    this.parser = factory.createNonBlockingByteArrayParser();
+    this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    this.tokens = new TokenBuffer(parser);
+    // Link properties are read as text, so decimals within _links keep their written form.
+    this.tokens.forceUseOfBigDecimal(true);
+  }
+
+  /**
+   * Feeds the remaining bytes of the chunk, returning the representation if they complete the
+   * document.
+   *
+   * @throws IllegalStateException if the document has already been completed.
+   */
+  public Option<ResourceRepresentation<ByteString>> feed(ByteBuffer chunk) {
+    if (resource != null) {
+      throw new IllegalStateException("The document has already been read.");
+    }
+    if (!chunk.hasRemaining()) {
+      return Option.none();
+    }
+    // Each chunk is fed from the start of its own array, as the 2.9 parser miscounts its byte
+    // offsets when fed from an offset into a shared array.
+    byte[] bytes = new byte[chunk.remaining()];
+    chunk.get(bytes);
+    chunks.add(ByteBuffer.wrap(bytes));
+    try {
+      feeder.feedInput(bytes, 0, bytes.length);
+      return Option.of(advance());
+    } catch (IOException e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Signals that no more input will be fed, returning the completed representation.
+   *
+   * @throws RepresentationException if the input ended before the document was complete.
+   */
+  public ResourceRepresentation<ByteString> endOfInput() {
+    if (resource == null) {
+      feeder.endOfInput();
+      try {
+        advance();
+      } catch (IOException e) {
+        throw new RepresentationException(e.getMessage(), e);
+      }
+      if (resource == null) {
+        throw new RepresentationException("Input ended before the JSON document was complete.");
+      }
+    }
+    return resource;
+  }
+
+  public boolean isDone() {
+    return resource != null;
+  }
+
+  /**
+   * Records the tokens available from the input fed so far, tracking the nesting depth so that the
+   * end of the root object is recognised. Once complete, the representation is read from the
+   * recorded tokens over the document's bytes.
+   */
+  private ResourceRepresentation<ByteString> advance() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+      if (size == 0 && token != JsonToken.START_OBJECT) {
+        throw new RepresentationException("Expected a JSON object at the root of the document.");
+      }
+      record(token);
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      offsets[size++] = (int) parser.getCurrentLocation().getByteOffset();
+      if (token.isStructStart()) {
+        if (linksField && linksDepth == 0) {
+          linksDepth = depth + 1;
+        }
+        depth++;
+      } else if (token.isStructEnd() && --depth < linksDepth) {
+        linksDepth = 0;
+      }
+      linksField = token == JsonToken.FIELD_NAME && LINKS.equals(parser.getCurrentName());
+      if (token.isStructEnd() && depth == 0) {
+        parser.close();
+        ByteString source =
+            ByteString.read(
+                new ChunksInputStream(chunks.toArray(new ByteBuffer[0])), offsets[size - 1]);
+        chunks.clear();
+        try (JsonParser recorded = new RecordedTokens(tokens.asParser(), offsets)) {
+          resource = reader.read(recorded, source);
+        }
+        return resource;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Records the current token. Scalar values outside of {@code _links} are recorded as placeholders
+   * of the same type, as the reader only asks for their offsets.
+   */
+  private void record(JsonToken token) throws IOException {
+    if (linksDepth > 0 || !token.isScalarValue()) {
+      tokens.copyCurrentEvent(parser);
+    } else if (token == JsonToken.VALUE_STRING) {
+      tokens.writeString("");
+    } else if (token == JsonToken.VALUE_NUMBER_INT) {
+      tokens.writeNumber(0);
+    } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+      tokens.writeNumber(0d);
+    } else {
+      tokens.copyCurrentEvent(parser);
+    }
+  }
+
+  /**
+   * Replays recorded tokens, reporting the byte offset each token ended at in the source document
+   * as its location. Only the openings of objects and arrays have a token location, one byte before
+   * their end, which is all the reader asks for.
+   */
+  private static final class RecordedTokens extends JsonParserDelegate {
+
+    private final int[] offsets;
+
+    private int index = -1;
+
+    private RecordedTokens(JsonParser tokens, int[] offsets) {
+      super(tokens);
+      this.offsets = offsets;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+      JsonToken token = delegate.nextToken();
+      if (token != null) {
+        index++;
+      }
+      return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+      JsonToken token = nextToken();
+      return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+      if (!currentToken().isStructStart()) {
+        return this;
+      }
+      int open = 1;
+      while (open > 0) {
+        JsonToken token = nextToken();
+        if (token == null) {
+          return this;
+        }
+        if (token.isStructStart()) {
+          open++;
+        } else if (token.isStructEnd()) {
+          open--;
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public JsonLocation getCurrentLocation() {
+      return index < 0 ? JsonLocation.NA : location(offsets[index]);
+    }
+
+    @Override
+    public JsonLocation getTokenLocation() {
+      return index < 0 || !currentToken().isStructStart()
+          ? JsonLocation.NA
+          : location(offsets[index] - 1);
+    }
+
+    private static JsonLocation location(long byteOffset) {
+      return new JsonLocation(null, byteOffset, -1L, -1, -1);
+    }
+  }
+}
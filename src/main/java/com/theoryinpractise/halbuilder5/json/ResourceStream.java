@@ -0,0 +1,311 @@
+package com.theoryinpractise.halbuilder5.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.theoryinpractise.halbuilder5.Link;
+import com.theoryinpractise.halbuilder5.RepresentationException;
+import com.theoryinpractise.halbuilder5.ResourceRepresentation;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.theoryinpractise.halbuilder5.Support.CURIES;
+import static com.theoryinpractise.halbuilder5.Support.EMBEDDED;
+import static com.theoryinpractise.halbuilder5.Support.LINKS;
+import static com.theoryinpractise.halbuilder5.json.JsonRepresentationReader.skipValue;
+
+/**
+ * ResourceStream incrementally reads a single HAL document, pulling its embedded resources from the
+ * underlying input one at a time as they are iterated, so that memory use is bounded by the size of
+ * the largest embedded resource rather than the size of the collection.
+ *
+ * <p>The top level links and properties are available from {@link #getResource()} as soon as the
+ * stream is created. Links and properties appearing after {@code _embedded} in the document can
+ * only be read once every embedded resource has been pulled, and are merged into {@link
+ * #getResource()} when the iteration is exhausted. Embedded resources are not included in the top
+ * level resource.
+ *
+ * <p>Properties and embedded resources are sliced out of the input bytes as they are read, the same
+ * as {@link JsonRepresentationReader#read(ByteString)} does, so their content is kept verbatim.
+ * Only the bytes of the field or resource currently being read are held, along with the properties
+ * of the top level resource.
+ *
+ * <p>Each embedded resource is returned paired with its rel. Closing the stream closes the
+ * underlying input.
+ */
+public final class ResourceStream
+    implements Iterator<Tuple2<String, ResourceRepresentation<ByteString>>>, AutoCloseable {
+
+  private final JsonRepresentationReader reader;
+
+  private final RecordingInputStream input;
+
+  private final JsonParser parser;
+
+  private final Buffer properties = new Buffer();
+
+  private List<Tuple2<String, String>> namespaces = List.empty();
+
+  private List<Link> links = List.empty();
+
+  private ResourceRepresentation<ByteString> resource;
+
+  private String rel;
+
+  private boolean inEmbedded;
+
+  private boolean inArray;
+
+  private Tuple2<String, ResourceRepresentation<ByteString>> next;
+
+  ResourceStream(JsonRepresentationReader reader, JsonFactory factory, InputStream inputStream)
+      throws IOException {
+    this.reader = reader;
+    this.input = new RecordingInputStream(inputStream);
+    this.parser = factory.createParser(input);
+    try {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new RepresentationException("Expected a JSON object at the root of the document.");
+      }
+      inEmbedded = readFields();
+      resource = buildResource();
+    } catch (Exception e) {
+      close();
+      throw e instanceof RepresentationException
+          ? (RepresentationException) e
+          : new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The top level resource, holding the links and properties read so far. Once the embedded
+   * resources have been exhausted this includes any links and properties following them.
+   */
+  public ResourceRepresentation<ByteString> getResource() {
+    return resource;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = advance();
+      } catch (IOException e) {
+        throw new RepresentationException(e.getMessage(), e);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public Tuple2<String, ResourceRepresentation<ByteString>> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Tuple2<String, ResourceRepresentation<ByteString>> current = next;
+    next = null;
+    return current;
+  }
+
+  /** A sequential stream of the remaining embedded resources, closing this stream on close. */
+  public Stream<Tuple2<String, ResourceRepresentation<ByteString>>> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(this::close);
+  }
+
+  /** A sequential stream of the remaining embedded resources for the given rel. */
+  public Stream<ResourceRepresentation<ByteString>> stream(String rel) {
+    return stream().filter(embedded -> embedded._1.equals(rel)).map(embedded -> embedded._2);
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      throw new RepresentationException(e.getMessage(), e);
+    }
+  }
+
+  private Tuple2<String, ResourceRepresentation<ByteString>> advance() throws IOException {
+    while (inEmbedded) {
+      if (inArray) {
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+          return Tuple.of(rel, readEmbeddedResource());
+        }
+        inArray = false;
+      }
+      if (parser.nextToken() == JsonToken.FIELD_NAME) {
+        rel = parser.getCurrentName();
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          inArray = true;
+        } else {
+          return Tuple.of(rel, readEmbeddedResource());
+        }
+      } else {
+        inEmbedded = readFields();
+        if (!inEmbedded) {
+          resource = buildResource();
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the fields of the top level object up to the start of the next {@code _embedded} object,
+   * returning true when positioned inside one, or false when the top level object has ended.
+   */
+  private boolean readFields() throws IOException {
+    long fieldStart = parser.getCurrentLocation().getByteOffset();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken valueToken = parser.nextToken();
+
+      if (LINKS.equals(fieldName)) {
+        if (valueToken == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String linkRel = parser.getCurrentName();
+            parser.nextToken();
+            if (CURIES.equals(linkRel)) {
+              namespaces = namespaces.appendAll(reader.readNamespaces(parser));
+            } else {
+              links = links.appendAll(reader.readLinks(parser, linkRel));
+            }
+          }
+        } else {
+          parser.skipChildren();
+        }
+      } else if (EMBEDDED.equals(fieldName)) {
+        if (valueToken == JsonToken.START_OBJECT) {
+          return true;
+        }
+        parser.skipChildren();
+      } else {
+        skipValue(parser);
+        long fieldEnd = parser.getCurrentLocation().getByteOffset();
+        input.discardTo(fieldStart);
+        input.discardSeparators(fieldEnd);
+        properties.writeByte(properties.size() == 0 ? '{' : ',');
+        input.moveTo(properties, fieldEnd);
+      }
+
+      fieldStart = parser.getCurrentLocation().getByteOffset();
+      input.discardTo(fieldStart);
+    }
+    return false;
+  }
+
+  /** Slices the embedded object under the parser out of the input, and reads that. */
+  private ResourceRepresentation<ByteString> readEmbeddedResource() throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new RepresentationException(
+          String.format("Expected an embedded JSON object but found %s.", parser.currentToken()));
+    }
+    long start = parser.getTokenLocation().getByteOffset();
+    parser.skipChildren();
+    Buffer item = new Buffer();
+    input.discardTo(start);
+    input.moveTo(item, parser.getCurrentLocation().getByteOffset());
+    return reader.read(item.readByteString());
+  }
+
+  private ResourceRepresentation<ByteString> buildResource() throws IOException {
+    ByteString value =
+        properties.size() == 0
+            ? ByteString.encodeUtf8("{}")
+            : properties.clone().writeUtf8("}").readByteString();
+    ResourceRepresentation<ByteString> representation =
+        ResourceRepresentation.empty().withValue(value);
+
+    for (Tuple2<String, String> namespace : namespaces) {
+      representation = representation.withNamespace(namespace._1, namespace._2);
+    }
+
+    if (!links.isEmpty()) {
+      representation = representation.withLinks(links);
+    }
+
+    return representation;
+  }
+
+  /**
+   * Keeps the bytes the parser has read from the input but that have not yet been discarded, so
+   * that the ranges of fields and embedded resources can be sliced out by their byte offsets. The
+   * parser only reads ahead by its own buffer, so this stays bounded by that and the size of the
+   * range currently being read.
+   */
+  private static final class RecordingInputStream extends FilterInputStream {
+
+    private final Buffer window = new Buffer();
+
+    private long windowStart;
+
+    private RecordingInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if (read != -1) {
+        window.writeByte(read);
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      int read = in.read(bytes, offset, length);
+      if (read > 0) {
+        window.write(bytes, offset, read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+      byte[] skipped = new byte[(int) Math.min(count, 8192)];
+      int read = read(skipped, 0, skipped.length);
+      return Math.max(read, 0);
+    }
+
+    /** Discards the bytes before the given offset. */
+    private void discardTo(long offset) throws IOException {
+      window.skip(offset - windowStart);
+      windowStart = offset;
+    }
+
+    /** Discards the commas and whitespace leading the remaining bytes, up to the given offset. */
+    private void discardSeparators(long end) throws IOException {
+      while (windowStart < end && isSeparator(window.getByte(0))) {
+        discardTo(windowStart + 1);
+      }
+    }
+
+    /** Moves the bytes up to the given offset onto the sink. */
+    private void moveTo(Buffer sink, long end) throws IOException {
+      sink.write(window, end - windowStart);
+      windowStart = end;
+    }
+
+    private static boolean isSeparator(byte b) {
+      return b == ',' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+  }
+}
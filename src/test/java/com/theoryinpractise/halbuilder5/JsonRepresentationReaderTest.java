@@ -0,0 +1,442 @@
+package com.theoryinpractise.halbuilder5;
+
+import com.theoryinpractise.halbuilder5.json.IndexedResource;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationReader;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationWriter;
+import com.theoryinpractise.halbuilder5.json.OutputProfile;
+import com.theoryinpractise.halbuilder5.json.ReadSelection;
+import com.theoryinpractise.halbuilder5.json.ResourceFeeder;
+import com.theoryinpractise.halbuilder5.json.ResourceStream;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.control.Option;
+import okio.Buffer;
+import okio.ByteString;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.theoryinpractise.halbuilder5.Support.defaultObjectMapper;
+import static com.theoryinpractise.halbuilder5.json.JsonRepresentationReader.readByteStringAs;
+
+public class JsonRepresentationReaderTest {
+
+  private static final ByteString DOCUMENT =
+      ByteString.encodeUtf8(
+          "{\n"
+              + "  \"accountNumber\" : \"0101232\",\n"
+              + "  \"_links\" : {\n"
+              + "    \"curies\" : [ { \"name\" : \"bank\", \"href\" : \"/rels/{rel}\" } ],\n"
+              + "    \"self\" : { \"href\" : \"/account\" },\n"
+              + "    \"bank:statement\" : [ { \"href\" : \"/s/1\" }, { \"href\" : \"/s/2\" } ]\n"
+              + "  },\n"
+              + "  \"name\" : \"Test Account\",\n"
+              + "  \"_embedded\" : {\n"
+              + "    \"bank:owner\" : {\n"
+              + "      \"_links\" : { \"self\" : { \"href\" : \"/owner\" } },\n"
+              + "      \"name\" : \"Owner\",\n"
+              + "      \"tags\" : [ \"a\", { \"b\" : null } ]\n"
+              + "    }\n"
+              + "  },\n"
+              + "  \"balance\" : 10.50\n"
+              + "}");
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> properties(ResourceRepresentation<?> representation) {
+    return ((ResourceRepresentation<ByteString>) representation)
+        .map(readByteStringAs(defaultObjectMapper(), Map.class))
+        .get();
+  }
+
+  @Test
+  public void testPropertiesExcludeLinksAndEmbeds() {
+    ResourceRepresentation<ByteString> representation =
+        JsonRepresentationReader.create().read(DOCUMENT);
+
+    Map<String, Object> properties = properties(representation);
+
+    assertThat(properties.keySet()).containsExactly("accountNumber", "name", "balance").inOrder();
+    assertThat(properties.get("name")).isEqualTo("Test Account");
+    assertThat(representation.getContent().get()).isEqualTo(DOCUMENT);
+  }
+
+  @Test
+  public void testLinksAndNamespacesAreRead() {
+    ResourceRepresentation<ByteString> representation =
+        JsonRepresentationReader.create().read(DOCUMENT);
+
+    assertThat(representation.getNamespaces().get("bank").get()).isEqualTo("/rels/{rel}");
+    assertThat(representation.getResourceLink().map(Links::getHref).get()).isEqualTo("/account");
+    assertThat(representation.getLinksByRel("bank:statement").map(Links::getHref))
+        .containsExactly("/s/1", "/s/2")
+        .inOrder();
+  }
+
+  @Test
+  public void testEmbeddedResourcesHaveTheirOwnProperties() {
+    ResourceRepresentation<ByteString> representation =
+        JsonRepresentationReader.create().read(DOCUMENT);
+
+    ResourceRepresentation<?> owner = representation.getResourcesByRel("bank:owner").head();
+    Map<String, Object> properties = properties(owner);
+
+    assertThat(properties.keySet()).containsExactly("name", "tags").inOrder();
+    assertThat(owner.getResourceLink().map(Links::getHref).get()).isEqualTo("/owner");
+  }
+
+  @Test(expectedExceptions = RepresentationException.class)
+  public void testLinksWithoutHrefFail() {
+    JsonRepresentationReader.create()
+        .read(ByteString.encodeUtf8("{ \"_links\" : { \"self\" : { \"title\" : \"x\" } } }"));
+  }
+
+  @Test
+  public void testPropertiesAreMaterialisedLazily() {
+    ResourceRepresentation<ByteString> representation =
+        JsonRepresentationReader.create().read(DOCUMENT);
+
+    assertThat(representation.isLazy()).isTrue();
+    assertThat(representation.getResourcesByRel("bank:owner").head().isLazy()).isTrue();
+
+    ByteString properties = representation.get();
+    assertThat(properties).isSameAs(representation.get());
+    assertThat(properties.utf8()).startsWith("{\"accountNumber\" : \"0101232\",\"name\"");
+  }
+
+  @Test
+  public void testByteOrientedReadsMatchByteStringRead() {
+    JsonRepresentationReader reader = JsonRepresentationReader.create();
+    ResourceRepresentation<ByteString> expected = reader.read(DOCUMENT);
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(DOCUMENT.size());
+    direct.put(DOCUMENT.asByteBuffer());
+    direct.flip();
+
+    assertThat(reader.read(new ByteArrayInputStream(DOCUMENT.toByteArray()))).isEqualTo(expected);
+    assertThat(reader.read(new Buffer().write(DOCUMENT))).isEqualTo(expected);
+    assertThat(reader.read(direct)).isEqualTo(expected);
+    assertThat(direct.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void testStreamedResourceMergesFieldsAfterEmbedded() {
+    try (ResourceStream stream =
+        JsonRepresentationReader.create().stream(new Buffer().write(DOCUMENT))) {
+
+      assertThat(properties(stream.getResource()).keySet())
+          .containsExactly("accountNumber", "name")
+          .inOrder();
+      assertThat(stream.getResource().getNamespaces().get("bank").get()).isEqualTo("/rels/{rel}");
+
+      Tuple2<String, ResourceRepresentation<ByteString>> owner = stream.next();
+      assertThat(owner._1).isEqualTo("bank:owner");
+      assertThat(owner._2.getResourceLink().map(Links::getHref).get()).isEqualTo("/owner");
+      assertThat(properties(owner._2).get("name")).isEqualTo("Owner");
+
+      assertThat(stream.hasNext()).isFalse();
+      assertThat(properties(stream.getResource()).keySet())
+          .containsExactly("accountNumber", "name", "balance")
+          .inOrder();
+      assertThat(stream.getResource().getResources().isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  public void testStreamedResourcesKeepTextAndDecimals() {
+    ByteString document =
+        ByteString.encodeUtf8(
+            "{ \"amount\" : 1.50, \"_links\" : { \"self\" : { \"href\" : \"/items\" } },\n"
+                + "  \"_embedded\" : { \"item\" : [\n"
+                + "    { \"price\" : 0.1000000000000000055511151231257827 },"
+                + " { \"name\" : \"Zoë\", \"total\" : 12345678901234567890.123 } ] },\n"
+                + "  \"rate\" : [ 0.10 ] }");
+    ResourceRepresentation<ByteString> read = JsonRepresentationReader.create().read(document);
+
+    try (ResourceStream stream =
+        JsonRepresentationReader.create().stream(new Buffer().write(document))) {
+      assertThat(stream.getResource().get().utf8()).isEqualTo("{\"amount\" : 1.50}");
+
+      assertThat(stream.next()._2).isEqualTo(read.getResourcesByRel("item").head());
+      assertThat(stream.next()._2).isEqualTo(read.getResourcesByRel("item").last());
+      assertThat(stream.hasNext()).isFalse();
+
+      assertThat(stream.getResource().get()).isEqualTo(read.get());
+      assertThat(stream.getResource().getLinks()).isEqualTo(read.getLinks());
+    }
+  }
+
+  @Test
+  public void testEmbeddedCollectionsAreStreamedPerRel() {
+    ResourceRepresentation<Void> collection = ResourceRepresentation.empty("/items");
+    for (int i = 0; i < 1000; i++) {
+      collection =
+          collection
+              .withRepresentation(
+                  "item", ResourceRepresentation.create("/items/" + i, Account.of("0", "I")))
+              .withRepresentation(
+                  "other", ResourceRepresentation.create("/others/" + i, Account.of("1", "A")));
+    }
+    ByteString document =
+        JsonRepresentationWriter.create(OutputProfile.compact()).print(collection);
+
+    InputStream input = new ByteArrayInputStream(document.toByteArray());
+
+    try (ResourceStream stream = JsonRepresentationReader.create().stream(input)) {
+
+      assertThat(stream.getResource().getResourceLink().map(Links::getHref).get())
+          .isEqualTo("/items");
+      assertThat(stream.stream("other").count()).isEqualTo(1000);
+    }
+  }
+
+  @Test
+  public void testFedChunksCompleteOnTheFinalChunk() {
+    JsonRepresentationReader reader = JsonRepresentationReader.create();
+    ResourceFeeder feeder = reader.feeder();
+
+    Option<ResourceRepresentation<ByteString>> result = Option.none();
+    for (int i = 0; i < DOCUMENT.size(); i += 7) {
+      assertThat(feeder.isDone()).isFalse();
+      ByteString chunk = DOCUMENT.substring(i, Math.min(i + 7, DOCUMENT.size()));
+      result = feeder.feed(chunk.asByteBuffer());
+    }
+
+    assertThat(feeder.isDone()).isTrue();
+    assertThat(result.get()).isEqualTo(reader.read(DOCUMENT));
+    assertThat(result.get().getContent().get()).isEqualTo(DOCUMENT);
+    assertThat(feeder.endOfInput()).isSameAs(result.get());
+  }
+
+  @Test
+  public void testFedDocumentsMatchReadDocumentsAtAnyChunkSize() {
+    StringBuilder items = new StringBuilder();
+    for (int i = 0; i < 5; i++) {
+      items.append(i == 0 ? "" : ", ");
+      items.append(
+          String.format(
+              "{\"_links\":{\"self\":{\"href\":\"/items/%d\",\"name\":\"n%d\"}},"
+                  + "\"n\":%d,\"price\":%d.50,"
+                  + "\"text\":\"a \\\"quoted\\\" é\",\"tags\":[true,null,{\"x\":-1}]}",
+              i, i, i, i));
+    }
+    ByteString document =
+        ByteString.encodeUtf8(
+            "{ \"id\" : 12 , \"_embedded\" : { \"item\" : [ " + items + " ] }, \"ok\":false } ");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      JsonRepresentationReader reader =
+          JsonRepresentationReader.create().withParallelEmbeds(executor, 2);
+      ResourceRepresentation<ByteString> expected =
+          reader.read(document.substring(0, document.size() - 1));
+
+      for (int chunkSize = 1; chunkSize < 16; chunkSize++) {
+        ResourceFeeder feeder = reader.feeder();
+        Option<ResourceRepresentation<ByteString>> result = Option.none();
+        for (int i = 0; i < document.size() && result.isEmpty(); i += chunkSize) {
+          result =
+              feeder.feed(
+                  document.substring(i, Math.min(i + chunkSize, document.size())).asByteBuffer());
+        }
+
+        ResourceRepresentation<ByteString> fed = result.get();
+        assertThat(fed).isEqualTo(expected);
+        assertThat(fed.get()).isEqualTo(expected.get());
+        assertThat(fed.getResourcesByRel("item").map(ResourceRepresentation::getLinks))
+            .containsExactlyElementsIn(
+                expected.getResourcesByRel("item").map(ResourceRepresentation::getLinks))
+            .inOrder();
+        assertThat(fed.getResourcesByRel("item").map(ResourceRepresentation::get))
+            .containsExactlyElementsIn(
+                expected.getResourcesByRel("item").map(ResourceRepresentation::get))
+            .inOrder();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = RepresentationException.class)
+  public void testFeederFailsOnIncompleteInput() {
+    ResourceFeeder feeder = JsonRepresentationReader.create().feeder();
+
+    assertThat(feeder.feed(DOCUMENT.substring(0, 40).asByteBuffer()).isEmpty()).isTrue();
+    feeder.endOfInput();
+  }
+
+  @Test
+  public void testParallelEmbedsReadInDocumentOrder() {
+    ResourceRepresentation<Void> collection = ResourceRepresentation.empty("/items");
+    for (int i = 0; i < 50; i++) {
+      collection =
+          collection.withRepresentation(
+              "item",
+              ResourceRepresentation.create("/items/" + i, Account.of(String.valueOf(i), "I"))
+                  .withRepresentation(
+                      "owner", ResourceRepresentation.create("/owner", Account.of("0", "O"))));
+    }
+    ByteString document = JsonRepresentationWriter.create().print(collection);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      JsonRepresentationReader reader = JsonRepresentationReader.create();
+      ResourceRepresentation<ByteString> parallel =
+          reader.withParallelEmbeds(executor, 4).read(document);
+
+      assertThat(parallel).isEqualTo(reader.read(document));
+      assertThat(
+              parallel
+                  .getResourcesByRel("item")
+                  .map(item -> item.getResourceLink().map(Links::getHref).get())
+                  .take(3))
+          .containsExactly("/items/0", "/items/1", "/items/2")
+          .inOrder();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelEmbedsOnlySplitArraysOfAtLeastTheThreshold() {
+    ResourceRepresentation<Void> small = ResourceRepresentation.empty("/items");
+    for (int i = 0; i < 3; i++) {
+      small = small.withRepresentation("item", ResourceRepresentation.empty("/items/" + i));
+    }
+    ResourceRepresentation<Void> large = small;
+    for (int i = 3; i < 12; i++) {
+      large = large.withRepresentation("item", ResourceRepresentation.empty("/items/" + i));
+    }
+
+    AtomicInteger tasks = new AtomicInteger();
+    JsonRepresentationReader reader = JsonRepresentationReader.create();
+    JsonRepresentationReader parallel =
+        reader.withParallelEmbeds(
+            task -> {
+              tasks.incrementAndGet();
+              task.run();
+            },
+            4);
+
+    ByteString smallDocument = JsonRepresentationWriter.create().print(small);
+    assertThat(parallel.read(smallDocument)).isEqualTo(reader.read(smallDocument));
+    assertThat(tasks.get()).isEqualTo(0);
+
+    ByteString largeDocument = JsonRepresentationWriter.create().print(large);
+    assertThat(parallel.read(largeDocument)).isEqualTo(reader.read(largeDocument));
+    // the first three items are read in place, the other nine in sub-ranges of four
+    assertThat(tasks.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testBindReadsTypedValuesInASinglePass() {
+    ResourceRepresentation<Account> account =
+        ResourceRepresentation.create("/account", Account.of("0101232", "Test Account"))
+            .withLink("statement", "/s/1")
+            .withRepresentation(
+                "owner", ResourceRepresentation.create("/owner", Account.of("1", "Owner")))
+            .withRepresentation(
+                "joint", ResourceRepresentation.create("/joint", Account.of("2", "Joint")));
+    ByteString document = JsonRepresentationWriter.create().print(account);
+
+    ResourceRepresentation<Account> bound =
+        JsonRepresentationReader.create()
+            .bind(document, Account.class, HashMap.of("owner", Account.class));
+
+    assertThat(bound.get()).isEqualTo(account.get());
+    assertThat(bound.getLinkByRel("statement").map(Links::getHref)).isEqualTo(Option.of("/s/1"));
+    assertThat(bound.getResourcesByRel("owner").head().get()).isEqualTo(Account.of("1", "Owner"));
+    assertThat(properties(bound.getResourcesByRel("joint").head()))
+        .containsEntry("accountNumber", "2");
+  }
+
+  @Test
+  public void testLinksOnlySelectionSkipsPropertiesAndEmbeds() {
+    ResourceRepresentation<ByteString> links =
+        JsonRepresentationReader.create().read(DOCUMENT, ReadSelection.linksOnly());
+
+    assertThat(links.get().utf8()).isEqualTo("{}");
+    assertThat(links.getResources()).isEmpty();
+    assertThat(links.getLinks())
+        .isEqualTo(JsonRepresentationReader.create().read(DOCUMENT).getLinks());
+  }
+
+  @Test
+  public void testSelectedRelsAndDepthAreRead() {
+    ResourceRepresentation<Void> collection =
+        ResourceRepresentation.empty("/items")
+            .withRepresentation(
+                "item",
+                ResourceRepresentation.create("/items/1", Account.of("1", "I"))
+                    .withRepresentation(
+                        "owner", ResourceRepresentation.create("/owner", Account.of("0", "O"))))
+            .withRepresentation("other", ResourceRepresentation.empty("/other"));
+    ByteString document = JsonRepresentationWriter.create().print(collection);
+    JsonRepresentationReader reader = JsonRepresentationReader.create();
+
+    ResourceRepresentation<ByteString> items =
+        reader.read(document, ReadSelection.linksOnly().withRels("item"));
+    assertThat(items.getResources().keySet()).containsExactly("item");
+    assertThat(items.getResourcesByRel("item").head().get()).isEqualTo(ByteString.encodeUtf8("{}"));
+
+    ResourceRepresentation<ByteString> shallow =
+        reader.read(document, ReadSelection.all().withMaxDepth(1));
+    assertThat(shallow.getResources().keySet()).containsExactly("item", "other");
+    assertThat(properties(shallow.getResourcesByRel("item").head())).containsEntry("name", "I");
+    assertThat(shallow.getResourcesByRel("item").head().getResources()).isEmpty();
+  }
+
+  @Test
+  public void testIndexedResourcesAreReadOnAccess() {
+    ResourceRepresentation<Void> collection = ResourceRepresentation.empty("/items");
+    for (int i = 0; i < 100; i++) {
+      collection =
+          collection.withRepresentation(
+              "item", ResourceRepresentation.create("/items/" + i, Account.of("" + i, "I")));
+    }
+    ByteString document = JsonRepresentationWriter.create().print(collection);
+    JsonRepresentationReader reader = JsonRepresentationReader.create();
+
+    IndexedResource index = reader.index(document);
+
+    assertThat(index.getRels()).containsExactly("item");
+    assertThat(index.size("item")).isEqualTo(100);
+    assertThat(index.getResource().getResources().isEmpty()).isTrue();
+    assertThat(index.getResource().getResourceLink().map(Links::getHref))
+        .isEqualTo(Option.of("/items"));
+
+    ResourceRepresentation<ByteString> item = index.getResource("item", 42);
+    assertThat(item.getResourceLink().map(Links::getHref)).isEqualTo(Option.of("/items/42"));
+    assertThat(properties(item)).containsEntry("accountNumber", "42");
+    assertThat(index.getResource("item", 42)).isSameAs(item);
+
+    assertThat(index.toRepresentation()).isEqualTo(reader.read(document));
+  }
+
+  @Test
+  public void testIndexedResourcesByRelAreReadAsTheyAreReached() {
+    ByteString document =
+        ByteString.encodeUtf8(
+            "{\"_embedded\":{\"item\":["
+                + "{\"_links\":{\"self\":{}}},"
+                + "{\"_links\":{\"self\":{\"href\":\"/items/1\"}}}]}}");
+    IndexedResource index = JsonRepresentationReader.create().index(document);
+
+    // the first item is malformed, so reading it ahead of time would fail here
+    Iterator<ResourceRepresentation<ByteString>> items = index.getResourcesByRel("item");
+    try {
+      items.next();
+      throw new AssertionError("Expected the malformed item to fail when reached.");
+    } catch (RepresentationException expected) {
+      assertThat(expected.getMessage()).contains("href");
+    }
+    assertThat(items.next().getResourceLink().map(Links::getHref)).isEqualTo(Option.of("/items/1"));
+  }
+}
@@ -0,0 +1,529 @@
+package com.theoryinpractise.halbuilder5;
+
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.theoryinpractise.halbuilder5.json.FragmentCache;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationReader;
+import com.theoryinpractise.halbuilder5.json.JsonRepresentationWriter;
+import com.theoryinpractise.halbuilder5.json.OutputProfile;
+import com.theoryinpractise.halbuilder5.json.Projection;
+import io.vavr.control.Option;
+import okio.Buffer;
+import okio.ByteString;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.theoryinpractise.halbuilder5.Support.defaultObjectMapper;
+import static com.theoryinpractise.halbuilder5.json.JsonRepresentationReader.readByteStringAs;
+
+public class JsonRepresentationWriterTest {
+
+  private static final String TEMPLATED_DOCUMENT =
+      "{\"_links\":{"
+          + "\"self\":{\"href\":\"/foo\"},"
+          + "\"search\":{\"href\":\"/foo{?q}\",\"templated\":true}}}";
+
+  private int occurrences(String haystack, String needle) {
+    int count = 0;
+    for (int i = haystack.indexOf(needle); i != -1; i = haystack.indexOf(needle, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  public void testReadLinksRenderWithoutDuplicateFields() {
+    ResourceRepresentation<ByteString> read =
+        JsonRepresentationReader.create().read(new StringReader(TEMPLATED_DOCUMENT));
+
+    String output =
+        JsonRepresentationWriter.create()
+            .print(read.map(readByteStringAs(defaultObjectMapper(), Map.class)))
+            .utf8();
+
+    assertThat(occurrences(output, "\"href\"")).isEqualTo(2);
+    assertThat(occurrences(output, "\"templated\"")).isEqualTo(1);
+
+    Boolean templated = JsonPath.parse(output).read("$['_links']['search']['templated']");
+    assertThat(templated).isTrue();
+  }
+
+  @Test
+  public void testEmbeddedRepresentationsRenderInline() {
+    ResourceRepresentation<?> resource =
+        ResourceRepresentation.create("/parent", Account.of("1", "Parent"))
+            .withRepresentation(
+                "child", ResourceRepresentation.create("/child", Account.of("2", "Child")));
+
+    String output = JsonRepresentationWriter.create().print(resource).utf8();
+
+    String childName = JsonPath.parse(output).read("$['_embedded']['child']['name']");
+    String childHref =
+        JsonPath.parse(output).read("$['_embedded']['child']['_links']['self']['href']");
+
+    assertThat(childName).isEqualTo("Child");
+    assertThat(childHref).isEqualTo("/child");
+  }
+
+  @Test
+  public void testCompactProfileOmitsWhitespace() {
+    ResourceRepresentation<?> resource =
+        ResourceRepresentation.create("/parent", Account.of("1", "Parent"))
+            .withRepresentation(
+                "child", ResourceRepresentation.create("/child", Account.of("2", "Child")));
+
+    ByteString pretty = JsonRepresentationWriter.create(OutputProfile.pretty()).print(resource);
+    ByteString compact = JsonRepresentationWriter.create(OutputProfile.compact()).print(resource);
+
+    assertThat(compact.utf8()).doesNotContain("\n");
+    assertThat(compact.utf8()).doesNotContain(" ");
+    assertThat(compact.size()).isLessThan(pretty.size());
+    assertThat(JsonRepresentationWriter.create().print(resource)).isEqualTo(pretty);
+
+    ResourceRepresentation<ByteString> read = JsonRepresentationReader.create().read(compact);
+    assertThat(read.getLinkByRel("self").map(Links::getHref)).isEqualTo(Option.of("/parent"));
+    assertThat(read.getResourcesByRel("child")).hasSize(1);
+  }
+
+  @Test
+  public void testCustomProfileUsesGivenPrettyPrinter() {
+    ResourceRepresentation<Void> resource = ResourceRepresentation.empty("/foo");
+
+    String output =
+        JsonRepresentationWriter.create(
+                OutputProfile.custom(
+                    new DefaultPrettyPrinter().withObjectIndenter(new DefaultIndenter("\t", "\n"))))
+            .print(resource)
+            .utf8();
+
+    assertThat(output).startsWith("{\n\t\"_links\"");
+  }
+
+  @Test
+  public void testPrettyProfileUsesTheMappersDefaultPrettyPrinter() {
+    ResourceRepresentation<Void> resource = ResourceRepresentation.empty("/foo");
+    ObjectMapper mapper = defaultObjectMapper();
+    mapper.setDefaultPrettyPrinter(
+        new DefaultPrettyPrinter().withObjectIndenter(new DefaultIndenter("\t", "\n")));
+
+    String output =
+        JsonRepresentationWriter.create(mapper, OutputProfile.pretty()).print(resource).utf8();
+
+    assertThat(output).startsWith("{\n\t\"_links\"");
+  }
+
+  @Test
+  public void testByteOrientedWritesMatchPrint() {
+    ResourceRepresentation<?> resource =
+        ResourceRepresentation.create("/parent", Account.of("1", "Pärent"))
+            .withRepresentation(
+                "child", ResourceRepresentation.create("/child", Account.of("2", "Child")));
+
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create();
+    ByteString expected = writer.print(resource);
+
+    StringWriter chars = new StringWriter();
+    writer.write(resource, chars);
+    assertThat(ByteString.encodeUtf8(chars.toString())).isEqualTo(expected);
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    writer.write(resource, stream);
+    writer.writeToChannel(resource, Channels.newChannel(stream));
+    assertThat(ByteString.of(stream.toByteArray()))
+        .isEqualTo(new Buffer().write(expected).write(expected).readByteString());
+
+    Buffer sink = new Buffer();
+    writer.write(resource, sink);
+    assertThat(sink.readByteString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testStreamedEmbedsAreWrittenAsTheyArePulled() {
+    ResourceRepresentation<Void> resource = ResourceRepresentation.empty("/items");
+    ResourceRepresentation<Account> first =
+        ResourceRepresentation.create("/items/1", Account.of("1", "A"));
+    ResourceRepresentation<Account> second =
+        ResourceRepresentation.create("/items/2", Account.of("2", "B"));
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    List<Integer> writtenBeforePull = new ArrayList<>();
+    Iterator<ResourceRepresentation<Account>> items = Arrays.asList(first, second).iterator();
+    Iterator<ResourceRepresentation<Account>> pulled =
+        new Iterator<ResourceRepresentation<Account>>() {
+          @Override
+          public boolean hasNext() {
+            return items.hasNext();
+          }
+
+          @Override
+          public ResourceRepresentation<Account> next() {
+            writtenBeforePull.add(stream.size());
+            return items.next();
+          }
+        };
+
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create();
+    writer.write(resource, "item", pulled, stream);
+
+    assertThat(writtenBeforePull).hasSize(2);
+    assertThat(writtenBeforePull.get(0)).isGreaterThan(0);
+    assertThat(writtenBeforePull.get(1)).isGreaterThan(writtenBeforePull.get(0));
+    assertThat(ByteString.of(stream.toByteArray()))
+        .isEqualTo(
+            writer.print(
+                resource.withRepresentation("item", first).withRepresentation("item", second)));
+  }
+
+  @Test
+  public void testStreamedEmbedsOutsideTheProjectionAreNotWritten() {
+    ResourceRepresentation<Void> resource = ResourceRepresentation.empty("/items");
+    List<ResourceRepresentation<Account>> items =
+        Arrays.asList(
+            ResourceRepresentation.create("/items/1", Account.of("1", "A")),
+            ResourceRepresentation.create("/items/2", Account.of("2", "B")));
+
+    for (Projection projection :
+        Arrays.asList(Projection.all().withoutRels("item"), Projection.all().withMaxDepth(0))) {
+      JsonRepresentationWriter writer =
+          JsonRepresentationWriter.create().withProjection(projection);
+      ByteString expected = writer.print(resource);
+
+      Iterator<ResourceRepresentation<Account>> unconsumed = items.iterator();
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      writer.write(resource, "item", unconsumed, stream);
+      assertThat(ByteString.of(stream.toByteArray())).isEqualTo(expected);
+      assertThat(unconsumed.next()).isSameAs(items.get(0));
+
+      List<Boolean> closed = new ArrayList<>();
+      Iterator<ResourceRepresentation<Account>> pulled = items.iterator();
+      Buffer sink = new Buffer();
+      writer.write(resource, "item", new ClosingIterator<>(pulled, closed), sink);
+      assertThat(sink.readByteString()).isEqualTo(expected);
+      assertThat(closed).containsExactly(true);
+      assertThat(pulled.hasNext()).isTrue();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testStreamedEmbedsCannotRepeatAnEmbeddedRel() {
+    ResourceRepresentation<Void> resource =
+        ResourceRepresentation.empty("/items")
+            .withRepresentation("item", ResourceRepresentation.empty("/items/1"));
+
+    JsonRepresentationWriter.create()
+        .write(resource, "item", Collections.emptyIterator(), new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void testFragmentCacheRendersIdenticalOutput() {
+    ResourceRepresentation<Account> owner =
+        ResourceRepresentation.create("/owner", Account.of("1", "Owner"))
+            .withRepresentation(
+                "bank", ResourceRepresentation.create("/bank", Account.of("0", "Bank")));
+
+    FragmentCache cache = FragmentCache.create(1024 * 1024);
+
+    for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+      JsonRepresentationWriter writer = JsonRepresentationWriter.create(profile);
+      JsonRepresentationWriter cached = writer.withFragmentCache(cache);
+
+      for (int i = 0; i < 3; i++) {
+        ResourceRepresentation<Account> account =
+            ResourceRepresentation.create("/account/" + i, Account.of(String.valueOf(i), "A"))
+                .withRepresentation("owner", owner);
+
+        assertThat(cached.print(account)).isEqualTo(writer.print(account));
+      }
+    }
+
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testFragmentCacheDistinguishesRels() {
+    ResourceRepresentation<Void> natural = ResourceRepresentation.empty("/a").withLink("tag", "/t");
+    ResourceRepresentation<Void> collection =
+        ResourceRepresentation.empty("/a").withRel(Rels.collection("tag")).withLink("tag", "/t");
+    assertThat(natural).isEqualTo(collection);
+
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create(OutputProfile.compact());
+    JsonRepresentationWriter cached = writer.withFragmentCache(FragmentCache.create(1 << 16));
+
+    for (ResourceRepresentation<Void> item : Arrays.asList(natural, collection)) {
+      ResourceRepresentation<Void> parent =
+          ResourceRepresentation.empty("/").withRepresentation("item", item);
+      assertThat(cached.print(parent)).isEqualTo(writer.print(parent));
+    }
+  }
+
+  @Test
+  public void testFragmentCacheKeepsDecimalPrecision() {
+    ResourceRepresentation<Price> price =
+        ResourceRepresentation.create("/price", new Price(new BigDecimal("1.50")));
+    ResourceRepresentation<Void> parent =
+        ResourceRepresentation.empty("/").withRepresentation("price", price);
+
+    for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+      JsonRepresentationWriter cached =
+          JsonRepresentationWriter.create(profile).withFragmentCache(FragmentCache.create(1 << 16));
+      for (int i = 0; i < 2; i++) {
+        assertThat(cached.print(parent).utf8()).contains("1.50");
+      }
+    }
+  }
+
+  @Test
+  public void testFragmentCacheEvictsLeastRecentlyUsed() {
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create(OutputProfile.compact());
+    ResourceRepresentation<Void> first = ResourceRepresentation.empty("/first");
+    ResourceRepresentation<Void> second = ResourceRepresentation.empty("/second");
+    long fragmentSize = writer.print(first).size();
+
+    FragmentCache cache = FragmentCache.create(fragmentSize * 2);
+    JsonRepresentationWriter cached = writer.withFragmentCache(cache);
+
+    cached.print(ResourceRepresentation.empty("/").withRepresentation("item", first));
+    cached.print(ResourceRepresentation.empty("/").withRepresentation("item", second));
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.weight()).isAtMost(fragmentSize * 2);
+  }
+
+  @Test
+  public void testFragmentCacheIsSharedBetweenThreads() throws Exception {
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create(OutputProfile.compact());
+    FragmentCache cache = FragmentCache.create(1 << 12);
+    JsonRepresentationWriter cached = writer.withFragmentCache(cache);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      pool.submit(
+              () ->
+                  IntStream.range(0, 2000)
+                      .parallel()
+                      .forEach(
+                          i -> {
+                            ResourceRepresentation<Void> parent =
+                                ResourceRepresentation.empty("/")
+                                    .withRepresentation(
+                                        "item",
+                                        ResourceRepresentation.create(
+                                            "/items/" + (i % 100), Account.of("1", "A")));
+                            assertThat(cached.print(parent)).isEqualTo(writer.print(parent));
+                          }))
+          .get();
+    } finally {
+      pool.shutdown();
+    }
+
+    assertThat(cache.weight()).isAtMost(1L << 12);
+    cache.invalidateAll();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.weight()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testBeanPropertiesRenderAsTheirTree() {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("accountNumber", "1");
+    properties.put("name", "Account");
+
+    ResourceRepresentation<Account> bean =
+        ResourceRepresentation.create("/account", Account.of("1", "Account"));
+    JsonRepresentationWriter writer = JsonRepresentationWriter.create();
+
+    for (int i = 0; i < 2; i++) {
+      assertThat(writer.print(bean))
+          .isEqualTo(writer.print(ResourceRepresentation.create("/account", properties)));
+    }
+  }
+
+  @Test
+  public void testParallelEmbedsRenderInRelOrder() {
+    Comparator<ResourceRepresentation<?>> byHref =
+        Comparator.comparing(r -> r.getResourceLink().map(Links::getHref).getOrElse(""));
+    ResourceRepresentation<Void> collection =
+        ResourceRepresentation.empty("/items").withRel(Rels.sorted("item", "href", byHref));
+    for (int i = 0; i < 200; i++) {
+      collection =
+          collection.withRepresentation(
+              "item",
+              ResourceRepresentation.create("/items/" + (i * 7919 % 200), Account.of("1", "A")));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+        JsonRepresentationWriter writer = JsonRepresentationWriter.create(profile);
+
+        assertThat(writer.withParallelEmbeds(pool, 16).print(collection))
+            .isEqualTo(writer.print(collection));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelEmbedsKeepDecimalPrecision() {
+    ResourceRepresentation<Void> collection = ResourceRepresentation.empty("/prices");
+    for (int i = 0; i < 8; i++) {
+      collection =
+          collection.withRepresentation(
+              "price",
+              ResourceRepresentation.create(
+                  "/prices/" + i, new Price(new BigDecimal("1.50000000000000000001"))));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+        String output =
+            JsonRepresentationWriter.create(profile)
+                .withParallelEmbeds(pool, 2)
+                .print(collection)
+                .utf8();
+
+        assertThat(occurrences(output, "1.50000000000000000001")).isEqualTo(8);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadPropertiesAreWrittenVerbatim() {
+    ByteString document =
+        ByteString.encodeUtf8(
+            "{ \"name\" : \"Test\", \"tags\" : [ \"a\", { \"b\" : null } ],\n"
+                + "  \"_links\" : { \"self\" : { \"href\" : \"/test\" } },\n"
+                + "  \"_embedded\" : { \"owner\" : { \"name\" : \"Owner\" } } }");
+
+    ResourceRepresentation<ByteString> read =
+        JsonRepresentationReader.create().read(document).withLink("next", "/next");
+
+    for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+      String output = JsonRepresentationWriter.create(profile).print(read).utf8();
+
+      String name = JsonPath.parse(output).read("$['name']");
+      Object b = JsonPath.parse(output).read("$['tags'][1]['b']");
+      String next = JsonPath.parse(output).read("$['_links']['next']['href']");
+      String owner = JsonPath.parse(output).read("$['_embedded']['owner']['name']");
+
+      assertThat(name).isEqualTo("Test");
+      assertThat(b).isNull();
+      assertThat(next).isEqualTo("/next");
+      assertThat(owner).isEqualTo("Owner");
+    }
+
+    assertThat(
+            JsonRepresentationWriter.create(OutputProfile.compact())
+                .print(ResourceRepresentation.create(ByteString.encodeUtf8(" {\"a\" : 1} ")))
+                .utf8())
+        .isEqualTo("{\"a\" : 1}");
+  }
+
+  @Test
+  public void testReadPropertiesKeepTextAndDecimals() {
+    ResourceRepresentation<ByteString> read =
+        JsonRepresentationReader.create()
+            .read(ByteString.encodeUtf8("{\"name\":\"Zoë ✓\",\"amount\":1.50,\"rates\":[0.10]}"));
+
+    for (OutputProfile profile : Arrays.asList(OutputProfile.compact(), OutputProfile.pretty())) {
+      JsonRepresentationWriter writer = JsonRepresentationWriter.create(profile);
+      StringWriter chars = new StringWriter();
+      writer.write(read, chars);
+
+      for (String output : Arrays.asList(writer.print(read).utf8(), chars.toString())) {
+        assertThat(output).contains("\"Zoë ✓\"");
+        assertThat(output).contains("1.50");
+        assertThat(output).contains("0.10");
+      }
+    }
+  }
+
+  @Test
+  public void testProjectionWritesOnlySelectedFieldsAndRels() {
+    ResourceRepresentation<Account> account =
+        ResourceRepresentation.create("/account", Account.of("0101232", "Test"))
+            .withLink("next", "/next")
+            .withLink("other", "/other")
+            .withRepresentation(
+                "owner",
+                ResourceRepresentation.create("/owner", Account.of("1", "Owner"))
+                    .withLink("other", "/other")
+                    .withRepresentation(
+                        "child", ResourceRepresentation.create("/child", Account.of("2", "C"))));
+
+    Projection projection =
+        Projection.all().withFields("name").withoutRels("other").withMaxDepth(1);
+    String expected =
+        "{\"name\":\"Test\","
+            + "\"_links\":{\"self\":{\"href\":\"/account\"},\"next\":{\"href\":\"/next\"}},"
+            + "\"_embedded\":{\"owner\":{\"name\":\"Owner\","
+            + "\"_links\":{\"self\":{\"href\":\"/owner\"}}}}}";
+
+    JsonRepresentationWriter writer =
+        JsonRepresentationWriter.create(OutputProfile.compact()).withProjection(projection);
+    assertThat(writer.print(account).utf8()).isEqualTo(expected);
+    assertThat(writer.withFragmentCache(FragmentCache.create(1 << 16)).print(account).utf8())
+        .isEqualTo(expected);
+
+    ResourceRepresentation<ByteString> read =
+        JsonRepresentationReader.create().read(JsonRepresentationWriter.create().print(account));
+    assertThat(writer.print(read).utf8()).isEqualTo(expected);
+  }
+
+  private static final class ClosingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final Iterator<T> iterator;
+
+    private final List<Boolean> closed;
+
+    ClosingIterator(Iterator<T> iterator, List<Boolean> closed) {
+      this.iterator = iterator;
+      this.closed = closed;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {
+      closed.add(true);
+    }
+  }
+
+  public static final class Price {
+
+    public final BigDecimal amount;
+
+    Price(BigDecimal amount) {
+      this.amount = amount;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.theoryinpractise.halbuilder5;
 
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import org.testng.annotations.Test;
 
@@ -29,6 +30,45 @@ public class RepresentationLinksTest {
     assertThatLinkLists(resource.getLinksByRel("foo")).doesNotContainRelCondition("bar");
   }
 
+  @Test
+  public void testLinksByRelKeepInsertionOrder() {
+
+    ResourceRepresentation<Void> resource = ResourceRepresentation.empty("/foo");
+    for (int i = 0; i < 1000; i++) {
+      resource = resource.withLink(i % 2 == 0 ? "even" : "odd", "/" + i);
+    }
+
+    assertThat(resource.getLinks()).hasSize(1001);
+    assertThat(resource.getLinks().head()).isEqualTo(Links.create("self", "/foo"));
+    assertThat(resource.getLinksByRel("even")).hasSize(500);
+    assertThat(resource.getLinksByRel("odd").map(Links::getHref).take(3))
+        .containsExactly("/1", "/3", "/5")
+        .inOrder();
+    assertThat(resource.getLinksByRel("missing")).isEmpty();
+  }
+
+  @Test
+  public void testLinkGroupsArePreGroupedAndCached() {
+
+    ResourceRepresentation<Void> resource =
+        ResourceRepresentation.empty("/foo")
+            .withNamespace("ns", "/ns/{rel}")
+            .withLink("ns:b", "/b/1")
+            .withLink("ns:a", "/a")
+            .withLink("ns:b", "/b/2");
+
+    List<Tuple2<String, List<Link>>> groups = resource.getLinkGroups(false);
+    assertThat(groups.map(Tuple2::_1)).containsExactly("self", "ns:a", "ns:b").inOrder();
+    assertThat(groups.last()._2.map(Links::getHref)).containsExactly("/b/1", "/b/2").inOrder();
+    assertThat(resource.getLinkGroups(false)).isSameAs(groups);
+
+    List<Tuple2<String, List<Link>>> namespaced = resource.getLinkGroups(true);
+    assertThat(namespaced.map(Tuple2::_1))
+        .containsExactly("curies", "self", "ns:a", "ns:b")
+        .inOrder();
+    assertThat(Links.getHref(namespaced.head()._2.head())).isEqualTo("/ns/{rel}");
+  }
+
   @Test
   public void testSpacedRelsSeparateLinks() {
 
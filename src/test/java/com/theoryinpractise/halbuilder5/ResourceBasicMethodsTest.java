@@ -5,6 +5,8 @@ import io.vavr.control.Option;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.google.common.truth.Truth.assertThat;
 import static io.vavr.control.Option.none;
 import static io.vavr.control.Option.some;
@@ -119,6 +121,41 @@ public class ResourceBasicMethodsTest {
     assertThat(updatedResource).isNotEqualTo(otherResource);
   }
 
+  @Test
+  public void equalResourcesHaveEqualFingerprints() {
+    assertThat(resource.fingerprint()).isEqualTo(otherResource.fingerprint());
+  }
+
+  @Test
+  public void testFingerprintIsDependentOnLinks() {
+    ResourceRepresentation<TreeMap<String, Option<String>>> updatedResource =
+        resource.withLink("testlink2", "http://example.com/link2");
+    assertThat(updatedResource.fingerprint()).isNotEqualTo(resource.fingerprint());
+  }
+
+  @Test
+  public void testFingerprintIsDependentOnResources() {
+    ResourceRepresentation<TreeMap<String, Option<String>>> updatedResource =
+        resource.withRepresentation("testsub2", ResourceRepresentation.empty("/subtest2"));
+    assertThat(updatedResource.fingerprint()).isNotEqualTo(resource.fingerprint());
+  }
+
+  @Test
+  public void testFingerprintIsStable() {
+    assertThat(ResourceRepresentation.create("/stable", "value").fingerprint())
+        .isEqualTo(ResourceRepresentation.create("/stable", "value").fingerprint());
+    assertThat(ResourceRepresentation.create("/stable", "value").fingerprint())
+        .isNotEqualTo(ResourceRepresentation.create("/stable", "other").fingerprint());
+  }
+
+  @Test
+  public void testFingerprintHashesScalarValuesByContent() {
+    assertThat(ResourceRepresentation.create("/stable", 42L).fingerprint())
+        .isEqualTo(ResourceRepresentation.create("/stable", 42L).fingerprint());
+    assertThat(ResourceRepresentation.create("/stable", TimeUnit.SECONDS).fingerprint())
+        .isNotEqualTo(ResourceRepresentation.create("/stable", TimeUnit.MINUTES).fingerprint());
+  }
+
   @Test
   public void testToStringRendersSelfHref() {
     String toString =
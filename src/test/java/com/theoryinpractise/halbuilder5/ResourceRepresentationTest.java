@@ -13,8 +13,10 @@ import okio.ByteString;
 import org.testng.annotations.Test;
 
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
@@ -246,6 +248,144 @@ public class ResourceRepresentationTest {
     assertThat(withLinks.getLinks()).hasSize(3);
   }
 
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testDuplicateEmbedFails() {
+    ResourceRepresentation<Account> child =
+        ResourceRepresentation.create("/child", Account.of("1", "Child"));
+
+    ResourceRepresentation.empty("/parent")
+        .withRepresentation("child", child)
+        .withRepresentation("other", ResourceRepresentation.empty("/other"))
+        .withRepresentation(
+            "child", ResourceRepresentation.create("/child", Account.of("1", "Child")));
+  }
+
+  @Test
+  public void testDuplicateCheckDoesNotMaterialiseLazyValues() {
+    AtomicInteger materialised = new AtomicInteger();
+    ResourceRepresentation<Account> first =
+        ResourceRepresentation.empty("/first")
+            .withLazyValue(
+                () -> {
+                  materialised.incrementAndGet();
+                  return Account.of("1", "First");
+                });
+    ResourceRepresentation<Account> second =
+        ResourceRepresentation.empty("/second")
+            .withLazyValue(
+                () -> {
+                  materialised.incrementAndGet();
+                  return Account.of("2", "Second");
+                });
+
+    ResourceRepresentation<Void> parent =
+        ResourceRepresentation.empty("/parent")
+            .withRepresentation("item", first)
+            .withRepresentation("item", second);
+    ResourceRepresentation<Void> built =
+        ResourceRepresentation.<Void>builder()
+            .withRepresentation("item", first)
+            .withRepresentation("item", second)
+            .build();
+
+    assertThat(parent.getResourcesByRel("item")).hasSize(2);
+    assertThat(built.getResourcesByRel("item")).hasSize(2);
+    assertThat(materialised.get()).isEqualTo(0);
+
+    try {
+      parent.withRepresentation("item", first);
+      throw new AssertionError("Expected the duplicate embed to fail.");
+    } catch (IllegalStateException expected) {
+      assertThat(materialised.get()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void testTrustedEmbedsSkipDuplicateCheck() {
+    ResourceRepresentation<Void> child = ResourceRepresentation.empty("/child");
+
+    ResourceRepresentation<Void> parent =
+        ResourceRepresentation.empty("/parent")
+            .withTrustedRepresentation("child", child)
+            .withTrustedRepresentation("child", child);
+
+    assertThat(parent.getResourcesByRel("child")).hasSize(2);
+  }
+
+  @Test
+  public void testBuilderMatchesPersistentRepresentation() {
+    ResourceRepresentation<Account> child = ResourceRepresentation.create("/child", null);
+
+    ResourceRepresentation<Account> persistent =
+        ResourceRepresentation.create("/account", Account.of("1", "Account"))
+            .withNamespace("bank", "/rels/{rel}")
+            .withLink("bank:statement", "/s/1")
+            .withLink("bank:statement", "/s/2")
+            .withRepresentation("bank:child", child);
+
+    ResourceRepresentation<Account> built =
+        ResourceRepresentation.<Account>builder()
+            .withValue(Account.of("1", "Account"))
+            .withLink("self", "/account")
+            .withNamespace("bank", "/rels/{rel}")
+            .withLink("bank:statement", "/s/1")
+            .withLink("bank:statement", "/s/2")
+            .withRepresentation("bank:child", child)
+            .build();
+
+    assertThat(built).isEqualTo(persistent);
+    assertThat(built.getRels().keySet()).containsExactlyElementsIn(persistent.getRels().keySet());
+    assertThat(JsonRepresentationWriter.create().print(built))
+        .isEqualTo(JsonRepresentationWriter.create().print(persistent));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testBuilderValidatesSingletonRelsOnBuild() {
+    ResourceRepresentation.builder().withLink("self", "/one").withLink("self", "/two").build();
+  }
+
+  @Test
+  public void testLazyMapIsDeferredUntilGet() {
+    AtomicInteger applied = new AtomicInteger();
+
+    ResourceRepresentation<Integer> mapped =
+        ResourceRepresentation.create("/self", "value")
+            .lazy()
+            .map(
+                value -> {
+                  applied.incrementAndGet();
+                  return value.length();
+                });
+
+    assertThat(mapped.isLazy()).isTrue();
+    assertThat(applied.get()).isEqualTo(0);
+
+    assertThat(mapped.get()).isEqualTo(5);
+    assertThat(mapped.get()).isEqualTo(5);
+    assertThat(applied.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testTypedReadIsDeferredUntilGet() {
+    ByteString document =
+        ByteString.encodeUtf8(
+            "{\"accountNumber\":\"1\",\"name\":{\"first\":\"Test\"},"
+                + "\"_links\":{\"self\":{\"href\":\"/a\"}}}");
+
+    ResourceRepresentation<Account> representation =
+        JsonRepresentationReader.create().read(document, Account.class);
+
+    assertThat(representation.isLazy()).isTrue();
+    assertThat(representation.getResourceLink().map(Links::getHref).get()).isEqualTo("/a");
+
+    try {
+      representation.get();
+      throw new AssertionError("Binding the mismatched name should fail on access.");
+    } catch (UncheckedIOException e) {
+      // expected
+    }
+  }
+
   private String deleteResource(Link link, String event) {
     System.out.printf("Deleting %s due to %s\n", Links.getHref(link), event);
     return String.format("deleted %s", Links.getHref(link));